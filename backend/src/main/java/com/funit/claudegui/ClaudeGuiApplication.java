@@ -1,45 +1,76 @@
 package com.funit.claudegui;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.funit.claudegui.config.ConfigFile;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
-import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 
 @SpringBootApplication
 public class ClaudeGuiApplication {
 
+    /**
+     * Spring profile with lazy bean initialization, enabled by backend.fastStartup
+     */
+    public static final String FAST_STARTUP_PROFILE = "fast-startup";
+
+    // The parsed configuration file, registered with the context it was read for
+    public static final String CONFIG_FILE_BEAN = "configFile";
+
+    // Set by the AppCDS training run of the build: start, answer one request, exit
+    private static final String EXIT_AFTER_STARTUP = "claudegui.exitAfterStartup";
+
     public static void main(String[] args) {
-        // Load configuration and set port dynamically
-        int port = loadPortFromConfig();
-        System.setProperty("server.port", String.valueOf(port));
+        // The configuration file is parsed once here; GuiConfiguration reuses the tree
+        ConfigFile configFile = ConfigFile.load();
+        JsonNode backend = backendConfig(configFile);
 
-        SpringApplication.run(ClaudeGuiApplication.class, args);
-    }
+        // Set port dynamically, unless given on the command line
+        if (System.getProperty("server.port") == null) {
+            System.setProperty("server.port", String.valueOf(backend.path("port").asInt(8080)));
+        }
 
-    private static int loadPortFromConfig() {
-        String configFile = "claude-gui.config.json";
-        File file = new File(configFile);
+        SpringApplication application = new SpringApplication(ClaudeGuiApplication.class);
+        application.addInitializers(context ->
+                context.getBeanFactory().registerSingleton(CONFIG_FILE_BEAN, configFile));
+        if (backend.path("fastStartup").asBoolean(false)) {
+            application.setAdditionalProfiles(FAST_STARTUP_PROFILE);
+        }
+        ConfigurableApplicationContext context = application.run(args);
 
-        // If not found in current directory, try parent directory
-        if (!file.exists()) {
-            file = new File("../" + configFile);
+        if (Boolean.getBoolean(EXIT_AFTER_STARTUP)) {
+            firstRequest(context);
+            System.exit(SpringApplication.exit(context));
         }
+    }
 
-        if (file.exists()) {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(file);
-                if (root.has("backend") && root.get("backend").has("port")) {
-                    return root.get("backend").get("port").asInt();
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to load port from config, using default: " + e.getMessage());
-            }
+    private static JsonNode backendConfig(ConfigFile configFile) {
+        if (configFile.getError() != null) {
+            System.err.println("Failed to load port from config, using default: " + configFile.getError());
         }
+        JsonNode root = configFile.getRoot();
+        return root != null ? root.path("backend") : MissingNode.getInstance();
+    }
 
-        // Default port
-        return 8080;
+    /**
+     * One request through security, MVC and Jackson, so the classes it
+     * loads end up in the archive as well
+     */
+    private static void firstRequest(ConfigurableApplicationContext context) {
+        String port = context.getEnvironment().getProperty("local.server.port");
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/claude/status"))
+                    .GET()
+                    .build();
+            HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            System.err.println("Training request failed: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,68 @@
+package com.funit.claudegui.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * claude-gui.config.json, parsed once per application context. The launcher
+ * needs the port before Spring starts and registers the parsed file with the
+ * context it starts, where {@link GuiConfiguration} reads everything else
+ * from the same tree, so the file is not read and parsed twice on startup.
+ * A context started any other way parses the file itself.
+ */
+public final class ConfigFile {
+
+    public static final String NAME = "claude-gui.config.json";
+
+    private final File file;
+    private final JsonNode root;
+    private final String error;
+
+    private ConfigFile(File file, JsonNode root, String error) {
+        this.file = file;
+        this.root = root;
+        this.error = error;
+    }
+
+    /**
+     * Read the configuration file in the working directory, or in its
+     * parent when started from backend/
+     */
+    public static ConfigFile load() {
+        File file = new File(NAME);
+        if (!file.exists()) {
+            file = new File("../" + NAME);
+        }
+        if (!file.exists()) {
+            return new ConfigFile(null, null, null);
+        }
+
+        try {
+            return new ConfigFile(file, new ObjectMapper().readTree(file), null);
+        } catch (IOException e) {
+            return new ConfigFile(file, null, e.getMessage());
+        }
+    }
+
+    public boolean exists() {
+        return file != null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Parsed content, null if there is no file or it could not be read
+     */
+    public JsonNode getRoot() {
+        return root;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
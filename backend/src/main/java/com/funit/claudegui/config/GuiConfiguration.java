@@ -1,21 +1,25 @@
 package com.funit.claudegui.config;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class GuiConfiguration {
     private static final Logger log = LoggerFactory.getLogger(GuiConfiguration.class);
-    private static final String CONFIG_FILE = "claude-gui.config.json";
+
+    // Registered by the launcher; absent when the context is started otherwise
+    @Autowired
+    private ObjectProvider<ConfigFile> configFileProvider;
 
     private int backendPort = 8080;
     private String backendHost = "localhost";
@@ -24,22 +28,120 @@ public class GuiConfiguration {
     private String projectRoot = ".";
     private boolean autoOpenBrowser = true;
     private String domainName = "localhost";
+    // Start with the fast-startup profile (lazy beans); read by the launcher
+    private boolean fastStartup = false;
+
+    // Analysis scheduling limits, per mode
+    private int simpleMaxConcurrent = 4;
+    private int simpleQueueCapacity = 32;
+    private int mcpMaxConcurrent = 4;
+    private int mcpQueueCapacity = 32;
+    // Turns of one conversation waiting for the one in progress
+    private int mcpMaxQueuedTurns = 8;
+    private int retryAfterSeconds = 30;
+
+    // Batches of simple analyses: size, items running at once, retries of failed items
+    private int batchMaxItems = 100;
+    private int batchMaxParallelism = 4;
+    private int batchMaxAttempts = 3;
+    private int batchRetryBackoffMs = 1000;
+
+    // Analyses nobody follows any more after a WebSocket disconnect are cancelled
+    private boolean cancelOnDisconnect = true;
+    private int disconnectGraceSeconds = 10;
+
+    // Identical simple analyses running at the same time share one process
+    private boolean simpleCoalesce = true;
+
+    // Output capture of simple-mode processes (empty spill directory means the system temp directory)
+    private long captureMemoryBytes = 1024 * 1024;
+    private long captureMaxBytes = 64L * 1024 * 1024;
+    private int captureStderrBytes = 64 * 1024;
+    private String captureSpillDirectory = "";
+
+    // Pre-spawned Claude processes for simple mode (0 disables the pool)
+    private int warmPoolSize = 0;
+    private int warmPoolMaxIdleSeconds = 600;
+
+    // Incremental stream-json output for MCP mode
+    private boolean mcpStreaming = false;
+    private boolean mcpPartialMessages = true;
+
+    // Resume the conversation's CLI session instead of replaying its transcript
+    private boolean mcpSessionResume = false;
+
+    // Conversation history sent with each MCP turn, in estimated tokens
+    private int historyTokenBudget = 8000;
+    private int historySummaryTokenBudget = 1500;
+
+    // File-backed conversation store
+    private boolean conversationStoreEnabled = true;
+    private String conversationStoreDirectory = "data/conversations";
+    private int conversationSegmentBytes = 4 * 1024 * 1024;
+    private boolean conversationStoreFsync = false;
+
+    // In-memory conversation cache
+    private long conversationCacheMaxBytes = 64L * 1024 * 1024;
+    private int conversationCacheIdleTtlMinutes = 60;
+
+    // Result cache for simple mode, keyed by prompt and project fingerprint
+    private boolean responseCacheEnabled = true;
+    private int responseCacheMemoryEntries = 256;
+    private long responseCacheMemoryMaxBytes = 32L * 1024 * 1024;
+    private String responseCacheDirectory = "data/response-cache";
+    private long responseCacheDiskMaxBytes = 512L * 1024 * 1024;
+    private List<String> fingerprintIgnore = new ArrayList<>(List.of(
+            ".git", "node_modules", "target", "dist", ".angular", "*.log"));
+
+    // Results above the inline size are stored on disk and fetched over HTTP (0 always sends them inline)
+    private long resultInlineMaxBytes = 256 * 1024;
+    private String resultStoreDirectory = "data/results";
+    private long resultStoreMaxBytes = 1024L * 1024 * 1024;
+    private int resultRetentionMinutes = 60;
+
+    // Supervision of Claude CLI processes
+    private int processReaderThreads = 2;
+    private int processTimeoutSeconds = 600;
+    private int processKillGraceSeconds = 5;
+
+    // Background availability check of the Claude CLI
+    private int healthProbeIntervalSeconds = 30;
+    private int healthProbeTimeoutSeconds = 5;
+
+    // Coalescing of WebSocket progress messages (0 ms sends every line as its own frame)
+    private int progressFlushIntervalMs = 100;
+    private int progressMaxFrameBytes = 16384;
+
+    // Wire format of WebSocket messages: short property names, permessage-deflate
+    private boolean webSocketCompactPayloads = false;
+    private boolean webSocketCompression = true;
+
+    // Several backend nodes behind a load balancer: conversations are owned by one node each,
+    // WebSocket messages go through an external STOMP broker when a relay host is set
+    private boolean clusterEnabled = false;
+    private String clusterSelfUrl = "";
+    private List<String> clusterNodes = new ArrayList<>();
+    private int clusterVirtualNodes = 128;
+    private int clusterProbeIntervalSeconds = 5;
+    private String brokerRelayHost = "";
+    private int brokerRelayPort = 61613;
+    private String brokerRelayLogin = "guest";
+    private String brokerRelayPasscode = "guest";
+    private String brokerRelayVirtualHost = "";
+
+    // Recent events per analysis, replayed to late subscribers (0 events disables replay)
+    private int replayMaxEvents = 256;
+    private long replayMaxBytes = 16L * 1024 * 1024;
+    private int replayTtlSeconds = 300;
 
     @PostConstruct
     public void loadConfiguration() {
-        // Try to load from current directory first
-        File configFile = new File(CONFIG_FILE);
-
-        // If not found, try parent directory (in case we're in backend/)
-        if (!configFile.exists()) {
-            configFile = new File("../" + CONFIG_FILE);
-        }
+        // Already parsed by the launcher when started through ClaudeGuiApplication
+        ConfigFile configFile = configFileProvider.getIfAvailable(ConfigFile::load);
 
         if (configFile.exists()) {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(configFile);
-
+            JsonNode root = configFile.getRoot();
+            if (root != null) {
                 if (root.has("backend")) {
                     JsonNode backend = root.get("backend");
                     if (backend.has("port")) {
@@ -48,6 +150,7 @@ public class GuiConfiguration {
                     if (backend.has("host")) {
                         backendHost = backend.get("host").asText();
                     }
+                    fastStartup = booleanValue(backend, "fastStartup", fastStartup);
                 }
 
                 if (root.has("frontend")) {
@@ -72,9 +175,183 @@ public class GuiConfiguration {
                     domainName = root.get("domainName").asText();
                 }
 
-                log.info("Loaded configuration from: {}", configFile.getAbsolutePath());
-            } catch (IOException e) {
-                log.warn("Failed to load configuration file, using defaults: {}", e.getMessage());
+                if (root.has("analysis")) {
+                    JsonNode analysis = root.get("analysis");
+                    if (analysis.has("simple")) {
+                        JsonNode simple = analysis.get("simple");
+                        simpleMaxConcurrent = intValue(simple, "maxConcurrent", simpleMaxConcurrent);
+                        simpleQueueCapacity = intValue(simple, "queueCapacity", simpleQueueCapacity);
+                        simpleCoalesce = booleanValue(simple, "coalesce", simpleCoalesce);
+                        if (simple.has("capture")) {
+                            JsonNode capture = simple.get("capture");
+                            if (capture.has("memoryBytes")) {
+                                captureMemoryBytes = capture.get("memoryBytes").asLong();
+                            }
+                            if (capture.has("maxBytes")) {
+                                captureMaxBytes = capture.get("maxBytes").asLong();
+                            }
+                            captureStderrBytes = intValue(capture, "stderrBytes", captureStderrBytes);
+                            if (capture.has("spillDirectory")) {
+                                captureSpillDirectory = capture.get("spillDirectory").asText();
+                            }
+                        }
+                        if (simple.has("warmPool")) {
+                            JsonNode warmPool = simple.get("warmPool");
+                            warmPoolSize = intValue(warmPool, "size", warmPoolSize);
+                            warmPoolMaxIdleSeconds = intValue(warmPool, "maxIdleSeconds", warmPoolMaxIdleSeconds);
+                        }
+                    }
+                    if (analysis.has("mcp")) {
+                        JsonNode mcp = analysis.get("mcp");
+                        mcpMaxConcurrent = intValue(mcp, "maxConcurrent", mcpMaxConcurrent);
+                        mcpQueueCapacity = intValue(mcp, "queueCapacity", mcpQueueCapacity);
+                        mcpMaxQueuedTurns = intValue(mcp, "maxQueuedTurns", mcpMaxQueuedTurns);
+                        if (mcp.has("history")) {
+                            JsonNode history = mcp.get("history");
+                            historyTokenBudget = intValue(history, "tokenBudget", historyTokenBudget);
+                            historySummaryTokenBudget = intValue(history, "summaryTokenBudget", historySummaryTokenBudget);
+                        }
+                        if (mcp.has("streaming")) {
+                            JsonNode streaming = mcp.get("streaming");
+                            mcpStreaming = booleanValue(streaming, "enabled", mcpStreaming);
+                            mcpPartialMessages = booleanValue(streaming, "partialMessages", mcpPartialMessages);
+                        }
+                        if (mcp.has("sessions")) {
+                            mcpSessionResume = booleanValue(mcp.get("sessions"), "resume", mcpSessionResume);
+                        }
+                    }
+                    if (analysis.has("batch")) {
+                        JsonNode batch = analysis.get("batch");
+                        batchMaxItems = intValue(batch, "maxItems", batchMaxItems);
+                        batchMaxParallelism = intValue(batch, "maxParallelism", batchMaxParallelism);
+                        batchMaxAttempts = intValue(batch, "maxAttempts", batchMaxAttempts);
+                        batchRetryBackoffMs = intValue(batch, "retryBackoffMs", batchRetryBackoffMs);
+                    }
+                    retryAfterSeconds = intValue(analysis, "retryAfterSeconds", retryAfterSeconds);
+                    cancelOnDisconnect = booleanValue(analysis, "cancelOnDisconnect", cancelOnDisconnect);
+                    disconnectGraceSeconds = intValue(analysis, "disconnectGraceSeconds", disconnectGraceSeconds);
+                }
+
+                if (root.has("conversationStore")) {
+                    JsonNode store = root.get("conversationStore");
+                    conversationStoreEnabled = booleanValue(store, "enabled", conversationStoreEnabled);
+                    if (store.has("directory")) {
+                        conversationStoreDirectory = store.get("directory").asText();
+                    }
+                    conversationSegmentBytes = intValue(store, "segmentBytes", conversationSegmentBytes);
+                    conversationStoreFsync = booleanValue(store, "fsync", conversationStoreFsync);
+                }
+
+                if (root.has("conversationCache")) {
+                    JsonNode cache = root.get("conversationCache");
+                    if (cache.has("maxBytes")) {
+                        conversationCacheMaxBytes = cache.get("maxBytes").asLong();
+                    }
+                    conversationCacheIdleTtlMinutes = intValue(cache, "idleTtlMinutes", conversationCacheIdleTtlMinutes);
+                }
+
+                if (root.has("responseCache")) {
+                    JsonNode cache = root.get("responseCache");
+                    responseCacheEnabled = booleanValue(cache, "enabled", responseCacheEnabled);
+                    responseCacheMemoryEntries = intValue(cache, "memoryEntries", responseCacheMemoryEntries);
+                    if (cache.has("memoryMaxBytes")) {
+                        responseCacheMemoryMaxBytes = cache.get("memoryMaxBytes").asLong();
+                    }
+                    if (cache.has("directory")) {
+                        responseCacheDirectory = cache.get("directory").asText();
+                    }
+                    if (cache.has("diskMaxBytes")) {
+                        responseCacheDiskMaxBytes = cache.get("diskMaxBytes").asLong();
+                    }
+                    if (cache.has("fingerprintIgnore")) {
+                        fingerprintIgnore = new ArrayList<>();
+                        for (JsonNode pattern : cache.get("fingerprintIgnore")) {
+                            fingerprintIgnore.add(pattern.asText());
+                        }
+                    }
+                }
+
+                if (root.has("resultStore")) {
+                    JsonNode store = root.get("resultStore");
+                    if (store.has("inlineMaxBytes")) {
+                        resultInlineMaxBytes = store.get("inlineMaxBytes").asLong();
+                    }
+                    if (store.has("directory")) {
+                        resultStoreDirectory = store.get("directory").asText();
+                    }
+                    if (store.has("maxBytes")) {
+                        resultStoreMaxBytes = store.get("maxBytes").asLong();
+                    }
+                    resultRetentionMinutes = intValue(store, "retentionMinutes", resultRetentionMinutes);
+                }
+
+                if (root.has("process")) {
+                    JsonNode process = root.get("process");
+                    processReaderThreads = intValue(process, "readerThreads", processReaderThreads);
+                    processTimeoutSeconds = intValue(process, "timeoutSeconds", processTimeoutSeconds);
+                    processKillGraceSeconds = intValue(process, "killGraceSeconds", processKillGraceSeconds);
+                }
+
+                if (root.has("healthProbe")) {
+                    JsonNode healthProbe = root.get("healthProbe");
+                    healthProbeIntervalSeconds = intValue(healthProbe, "intervalSeconds", healthProbeIntervalSeconds);
+                    healthProbeTimeoutSeconds = intValue(healthProbe, "timeoutSeconds", healthProbeTimeoutSeconds);
+                }
+
+                if (root.has("websocket")) {
+                    JsonNode websocket = root.get("websocket");
+                    webSocketCompactPayloads = booleanValue(websocket, "compactPayloads", webSocketCompactPayloads);
+                    webSocketCompression = booleanValue(websocket, "compression", webSocketCompression);
+                    if (websocket.has("progress")) {
+                        JsonNode progress = websocket.get("progress");
+                        progressFlushIntervalMs = intValue(progress, "flushIntervalMs", progressFlushIntervalMs);
+                        progressMaxFrameBytes = intValue(progress, "maxFrameBytes", progressMaxFrameBytes);
+                    }
+                    if (websocket.has("replay")) {
+                        JsonNode replay = websocket.get("replay");
+                        replayMaxEvents = intValue(replay, "maxEvents", replayMaxEvents);
+                        if (replay.has("maxBytes")) {
+                            replayMaxBytes = replay.get("maxBytes").asLong();
+                        }
+                        replayTtlSeconds = intValue(replay, "ttlSeconds", replayTtlSeconds);
+                    }
+                }
+
+                if (root.has("cluster")) {
+                    JsonNode cluster = root.get("cluster");
+                    clusterEnabled = booleanValue(cluster, "enabled", clusterEnabled);
+                    if (cluster.has("selfUrl")) {
+                        clusterSelfUrl = cluster.get("selfUrl").asText();
+                    }
+                    if (cluster.has("nodes")) {
+                        clusterNodes = new ArrayList<>();
+                        for (JsonNode node : cluster.get("nodes")) {
+                            clusterNodes.add(node.asText());
+                        }
+                    }
+                    clusterVirtualNodes = intValue(cluster, "virtualNodes", clusterVirtualNodes);
+                    clusterProbeIntervalSeconds = intValue(cluster, "probeIntervalSeconds", clusterProbeIntervalSeconds);
+                    if (cluster.has("brokerRelay")) {
+                        JsonNode relay = cluster.get("brokerRelay");
+                        if (relay.has("host")) {
+                            brokerRelayHost = relay.get("host").asText();
+                        }
+                        brokerRelayPort = intValue(relay, "port", brokerRelayPort);
+                        if (relay.has("login")) {
+                            brokerRelayLogin = relay.get("login").asText();
+                        }
+                        if (relay.has("passcode")) {
+                            brokerRelayPasscode = relay.get("passcode").asText();
+                        }
+                        if (relay.has("virtualHost")) {
+                            brokerRelayVirtualHost = relay.get("virtualHost").asText();
+                        }
+                    }
+                }
+
+                log.info("Loaded configuration from: {}", configFile.getFile().getAbsolutePath());
+            } else {
+                log.warn("Failed to load configuration file, using defaults: {}", configFile.getError());
             }
         } else {
             log.info("No configuration file found, using defaults");
@@ -83,6 +360,16 @@ public class GuiConfiguration {
         log.info("Backend: {}:{}", backendHost, backendPort);
         log.info("Frontend: {}:{}", frontendHost, frontendPort);
         log.info("Project Root: {}", getAbsoluteProjectRoot());
+        log.info("Analysis limits: simple {} running / {} queued, mcp {} running / {} queued",
+                simpleMaxConcurrent, simpleQueueCapacity, mcpMaxConcurrent, mcpQueueCapacity);
+    }
+
+    private static int intValue(JsonNode node, String field, int defaultValue) {
+        return node.has(field) ? node.get(field).asInt() : defaultValue;
+    }
+
+    private static boolean booleanValue(JsonNode node, String field, boolean defaultValue) {
+        return node.has(field) ? node.get(field).asBoolean() : defaultValue;
     }
 
     public int getBackendPort() {
@@ -93,6 +380,10 @@ public class GuiConfiguration {
         return backendHost;
     }
 
+    public boolean isFastStartup() {
+        return fastStartup;
+    }
+
     public int getFrontendPort() {
         return frontendPort;
     }
@@ -124,4 +415,269 @@ public class GuiConfiguration {
     public void setDomainName(String domainName) {
         this.domainName = domainName;
     }
+
+    public int getSimpleMaxConcurrent() {
+        return simpleMaxConcurrent;
+    }
+
+    public int getSimpleQueueCapacity() {
+        return simpleQueueCapacity;
+    }
+
+    public boolean isSimpleCoalesce() {
+        return simpleCoalesce;
+    }
+
+    public long getCaptureMemoryBytes() {
+        return captureMemoryBytes;
+    }
+
+    public long getCaptureMaxBytes() {
+        return captureMaxBytes;
+    }
+
+    public int getCaptureStderrBytes() {
+        return captureStderrBytes;
+    }
+
+    public Path getCaptureSpillDirectory() {
+        String directory = captureSpillDirectory.isEmpty() ? System.getProperty("java.io.tmpdir") : captureSpillDirectory;
+        return Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    public int getMcpMaxConcurrent() {
+        return mcpMaxConcurrent;
+    }
+
+    public int getMcpQueueCapacity() {
+        return mcpQueueCapacity;
+    }
+
+    public int getMcpMaxQueuedTurns() {
+        return mcpMaxQueuedTurns;
+    }
+
+    public int getBatchMaxItems() {
+        return batchMaxItems;
+    }
+
+    public int getBatchMaxParallelism() {
+        return batchMaxParallelism;
+    }
+
+    public int getBatchMaxAttempts() {
+        return batchMaxAttempts;
+    }
+
+    public int getBatchRetryBackoffMs() {
+        return batchRetryBackoffMs;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public boolean isCancelOnDisconnect() {
+        return cancelOnDisconnect;
+    }
+
+    public int getDisconnectGraceSeconds() {
+        return disconnectGraceSeconds;
+    }
+
+    public int getWarmPoolSize() {
+        return warmPoolSize;
+    }
+
+    public int getWarmPoolMaxIdleSeconds() {
+        return warmPoolMaxIdleSeconds;
+    }
+
+    public boolean isMcpStreaming() {
+        return mcpStreaming;
+    }
+
+    public boolean isMcpPartialMessages() {
+        return mcpPartialMessages;
+    }
+
+    public boolean isMcpSessionResume() {
+        return mcpSessionResume;
+    }
+
+    public int getHistoryTokenBudget() {
+        return historyTokenBudget;
+    }
+
+    public int getHistorySummaryTokenBudget() {
+        return historySummaryTokenBudget;
+    }
+
+    public boolean isConversationStoreEnabled() {
+        return conversationStoreEnabled;
+    }
+
+    public Path getConversationStoreDirectory() {
+        return Paths.get(conversationStoreDirectory).toAbsolutePath().normalize();
+    }
+
+    public int getConversationSegmentBytes() {
+        return conversationSegmentBytes;
+    }
+
+    public boolean isConversationStoreFsync() {
+        return conversationStoreFsync;
+    }
+
+    public long getConversationCacheMaxBytes() {
+        return conversationCacheMaxBytes;
+    }
+
+    public int getConversationCacheIdleTtlMinutes() {
+        return conversationCacheIdleTtlMinutes;
+    }
+
+    public boolean isResponseCacheEnabled() {
+        return responseCacheEnabled;
+    }
+
+    public int getResponseCacheMemoryEntries() {
+        return responseCacheMemoryEntries;
+    }
+
+    public long getResponseCacheMemoryMaxBytes() {
+        return responseCacheMemoryMaxBytes;
+    }
+
+    public Path getResponseCacheDirectory() {
+        return Paths.get(responseCacheDirectory).toAbsolutePath().normalize();
+    }
+
+    public long getResponseCacheDiskMaxBytes() {
+        return responseCacheDiskMaxBytes;
+    }
+
+    public List<String> getFingerprintIgnore() {
+        return fingerprintIgnore;
+    }
+
+    public long getResultInlineMaxBytes() {
+        return resultInlineMaxBytes;
+    }
+
+    public Path getResultStoreDirectory() {
+        return Paths.get(resultStoreDirectory).toAbsolutePath().normalize();
+    }
+
+    public long getResultStoreMaxBytes() {
+        return resultStoreMaxBytes;
+    }
+
+    public int getResultRetentionMinutes() {
+        return resultRetentionMinutes;
+    }
+
+    public int getProcessReaderThreads() {
+        return processReaderThreads;
+    }
+
+    public int getProcessTimeoutSeconds() {
+        return processTimeoutSeconds;
+    }
+
+    public int getProcessKillGraceSeconds() {
+        return processKillGraceSeconds;
+    }
+
+    public int getHealthProbeIntervalSeconds() {
+        return healthProbeIntervalSeconds;
+    }
+
+    public int getHealthProbeTimeoutSeconds() {
+        return healthProbeTimeoutSeconds;
+    }
+
+    public int getProgressFlushIntervalMs() {
+        return progressFlushIntervalMs;
+    }
+
+    public int getProgressMaxFrameBytes() {
+        return progressMaxFrameBytes;
+    }
+
+    /**
+     * Whether analysis events go over WebSocket with short property names
+     */
+    public boolean isWebSocketCompactPayloads() {
+        return webSocketCompactPayloads;
+    }
+
+    /**
+     * Whether the permessage-deflate extension is accepted on WebSocket handshakes
+     */
+    public boolean isWebSocketCompression() {
+        return webSocketCompression;
+    }
+
+    public boolean isClusterEnabled() {
+        return clusterEnabled;
+    }
+
+    /**
+     * URL other nodes reach this one at; defaults to the configured backend host and port
+     */
+    public String getClusterSelfUrl() {
+        return clusterSelfUrl.isEmpty() ? String.format("http://%s:%d", backendHost, backendPort) : clusterSelfUrl;
+    }
+
+    public List<String> getClusterNodes() {
+        return clusterNodes;
+    }
+
+    public int getClusterVirtualNodes() {
+        return clusterVirtualNodes;
+    }
+
+    public int getClusterProbeIntervalSeconds() {
+        return clusterProbeIntervalSeconds;
+    }
+
+    /**
+     * Whether WebSocket messages are relayed through an external STOMP broker
+     */
+    public boolean isBrokerRelayEnabled() {
+        return clusterEnabled && !brokerRelayHost.isEmpty();
+    }
+
+    public String getBrokerRelayHost() {
+        return brokerRelayHost;
+    }
+
+    public int getBrokerRelayPort() {
+        return brokerRelayPort;
+    }
+
+    public String getBrokerRelayLogin() {
+        return brokerRelayLogin;
+    }
+
+    public String getBrokerRelayPasscode() {
+        return brokerRelayPasscode;
+    }
+
+    public String getBrokerRelayVirtualHost() {
+        return brokerRelayVirtualHost;
+    }
+
+    public int getReplayMaxEvents() {
+        return replayMaxEvents;
+    }
+
+    public long getReplayMaxBytes() {
+        return replayMaxBytes;
+    }
+
+    public int getReplayTtlSeconds() {
+        return replayTtlSeconds;
+    }
 }
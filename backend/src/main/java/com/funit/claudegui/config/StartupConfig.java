@@ -0,0 +1,27 @@
+package com.funit.claudegui.config;
+
+import com.funit.claudegui.service.cache.ProjectFingerprint;
+import com.funit.claudegui.service.cluster.ClusterMembership;
+import com.funit.claudegui.service.process.ClaudeHealthProber;
+import com.funit.claudegui.service.process.WarmProcessPool;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans created at startup even under the fast-startup profile's lazy
+ * initialization, because they work in the background rather than on
+ * first use: the CLI health probe, cluster membership, the warm
+ * process pool and the project fingerprint, whose initial scan must be
+ * done before the response cache can serve or store anything.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBackgroundServices() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                ClaudeHealthProber.class, ClusterMembership.class, WarmProcessPool.class,
+                ProjectFingerprint.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.funit.claudegui.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Removes the WebSocket extensions a client offers from its handshake
+ * request, so the connection is made without permessage-deflate.
+ * Registered by {@link WebSocketConfig} when websocket.compression is off.
+ */
+public class WebSocketCompressionFilter extends OncePerRequestFilter {
+
+    private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(EXTENSIONS_HEADER) == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        chain.doFilter(new WithoutExtensions(request), response);
+    }
+
+    private static final class WithoutExtensions extends HttpServletRequestWrapper {
+
+        WithoutExtensions(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return EXTENSIONS_HEADER.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !EXTENSIONS_HEADER.equalsIgnoreCase(name))
+                    .collect(Collectors.toList());
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.funit.claudegui.config;
 
+import com.funit.claudegui.service.replay.SubscriptionReplayInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -10,9 +16,30 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private SubscriptionReplayInterceptor subscriptionReplayInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if (guiConfiguration.isBrokerRelayEnabled()) {
+            // Clustered: every node relays to a shared broker, so a client
+            // receives the messages of analyses running on any node
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(guiConfiguration.getBrokerRelayHost())
+                    .setRelayPort(guiConfiguration.getBrokerRelayPort())
+                    .setClientLogin(guiConfiguration.getBrokerRelayLogin())
+                    .setClientPasscode(guiConfiguration.getBrokerRelayPasscode())
+                    .setSystemLogin(guiConfiguration.getBrokerRelayLogin())
+                    .setSystemPasscode(guiConfiguration.getBrokerRelayPasscode());
+            if (!guiConfiguration.getBrokerRelayVirtualHost().isEmpty()) {
+                relay.setVirtualHost(guiConfiguration.getBrokerRelayVirtualHost());
+            }
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -22,5 +49,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Plain WebSocket without the SockJS framing, for clients that need no fallback transports
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*");
+    }
+
+    /**
+     * Tomcat accepts the permessage-deflate offer of a handshake on its own;
+     * with compression disabled the offer is hidden from it
+     */
+    @Bean
+    public FilterRegistrationBean<WebSocketCompressionFilter> webSocketCompressionFilter() {
+        FilterRegistrationBean<WebSocketCompressionFilter> registration =
+                new FilterRegistrationBean<>(new WebSocketCompressionFilter());
+        registration.addUrlPatterns("/ws/*", "/ws-native");
+        registration.setEnabled(!guiConfiguration.isWebSocketCompression());
+        return registration;
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Replays events a subscriber to an analysis topic has missed
+        registration.interceptors(subscriptionReplayInterceptor);
     }
 }
@@ -1,19 +1,58 @@
 package com.funit.claudegui.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.funit.claudegui.config.GuiConfiguration;
 import com.funit.claudegui.model.dto.ClaudeAnalysisRequest;
 import com.funit.claudegui.model.dto.ClaudeAnalysisResponse;
+import com.funit.claudegui.model.dto.ClaudeBatchRequest;
+import com.funit.claudegui.model.dto.ClaudeBatchResponse;
 import com.funit.claudegui.model.dto.ClaudeStatusResponse;
 import com.funit.claudegui.service.ClaudeSimpleService;
 import com.funit.claudegui.service.ClaudeMcpService;
 import com.funit.claudegui.service.WebSocketOutboundService;
+import com.funit.claudegui.service.batch.BatchAnalysisService;
+import com.funit.claudegui.service.cache.ResponseCache;
+import com.funit.claudegui.service.cluster.ClusterForwarder;
+import com.funit.claudegui.service.cluster.ClusterMembership;
+import com.funit.claudegui.service.conversation.ConversationCache;
+import com.funit.claudegui.service.conversation.SessionRegistry;
+import com.funit.claudegui.service.execution.AnalysisCanceller;
+import com.funit.claudegui.service.execution.AnalysisCoalescer;
+import com.funit.claudegui.service.execution.AnalysisMode;
+import com.funit.claudegui.service.execution.AnalysisRejectedException;
+import com.funit.claudegui.service.execution.AnalysisScheduler;
+import com.funit.claudegui.service.execution.ConversationMailbox;
+import com.funit.claudegui.service.process.ClaudeHealth;
+import com.funit.claudegui.service.process.ClaudeHealthProber;
+import com.funit.claudegui.service.process.ProcessCancelledException;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import com.funit.claudegui.service.process.WarmProcessPool;
+import com.funit.claudegui.service.replay.AnalysisEventBuffer;
+import com.funit.claudegui.service.result.ResultStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * REST API for Claude Code integration
@@ -26,6 +65,13 @@ public class ClaudeController {
 
     private static final Logger logger = LoggerFactory.getLogger(ClaudeController.class);
 
+    // JSON object answers of other nodes
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
     @Autowired
     private ClaudeSimpleService claudeSimpleService;
 
@@ -35,6 +81,51 @@ public class ClaudeController {
     @Autowired
     private WebSocketOutboundService webSocketService;
 
+    @Autowired
+    private AnalysisScheduler analysisScheduler;
+
+    @Autowired
+    private AnalysisCoalescer analysisCoalescer;
+
+    @Autowired
+    private AnalysisCanceller analysisCanceller;
+
+    @Autowired
+    private ConversationMailbox conversationMailbox;
+
+    @Autowired
+    private WarmProcessPool warmProcessPool;
+
+    @Autowired
+    private ClaudeHealthProber claudeHealthProber;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ConversationCache conversationCache;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private ResultStore resultStore;
+
+    @Autowired
+    private AnalysisEventBuffer analysisEventBuffer;
+
+    @Autowired
+    private BatchAnalysisService batchAnalysisService;
+
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    @Autowired
+    private ClusterForwarder clusterForwarder;
+
     /**
      * Analyze using simple mode (no conversation)
      * POST /api/claude/analyze-simple
@@ -57,27 +148,108 @@ public class ClaudeController {
         ClaudeAnalysisResponse response = new ClaudeAnalysisResponse(analysisId);
         response.setMode("simple");
 
-        // Execute asynchronously
-        CompletableFuture.runAsync(() -> {
-            try {
-                long startTime = System.currentTimeMillis();
+        // Same prompt against an unchanged project: answer from the cache
+        // (a bypassed request still refreshes the entry with its new result)
+        String cacheKey = responseCache.keyFor(request.getPrompt());
+        String cached = request.isBypassCache() ? null : responseCache.get(cacheKey);
+        if (cached != null) {
+            logger.info("Simple analysis {} served from cache", analysisId);
+            webSocketService.sendClaudeComplete(analysisId, cached, 0L);
+            response.setResult(cached);
+            response.setCompleted(true);
+            response.setDurationMs(0L);
+            return ResponseEntity.ok(response);
+        }
+
+        // The same prompt already running: share its process and its messages
+        AnalysisCoalescer.Attachment attachment = analysisCoalescer.join(request.getPrompt(), analysisId);
+        String flightId = attachment.getFlightId();
+        if (!attachment.isLeader()) {
+            webSocketService.sendClaudeProgress(analysisId, "Joined an identical analysis already in progress...");
+            return ResponseEntity.accepted().body(response);
+        }
 
-                webSocketService.sendClaudeProgress(analysisId, "Starting analysis...");
+        // Execute asynchronously once a simple-mode slot is free; all
+        // messages go to the flight and reach every attached analysis
+        Supplier<CompletableFuture<?>> task = () -> {
+            long startTime = System.currentTimeMillis();
+
+            webSocketService.sendClaudeStarted(flightId, "Starting analysis...");
+
+            // Execute Claude analysis
+            return claudeSimpleService.executeAnalysis(request.getPrompt(), flightId).handle((result, error) -> {
+                try {
+                    if (error == null) {
+                        responseCache.put(cacheKey, result);
+
+                        long duration = System.currentTimeMillis() - startTime;
+
+                        // Send completion via WebSocket
+                        analysisCoalescer.seal(flightId);
+                        webSocketService.sendClaudeComplete(flightId, result, duration);
+                    } else {
+                        Throwable cause = unwrap(error);
+                        analysisCoalescer.seal(flightId);
+                        if (cause instanceof ProcessCancelledException) {
+                            webSocketService.sendClaudeCancelled(flightId, ((ProcessCancelledException) cause).getReason());
+                        } else {
+                            logger.error("Error in simple analysis: {}", cause.getMessage(), cause);
+                            webSocketService.sendClaudeError(flightId, cause.getMessage());
+                        }
+                    }
+                } finally {
+                    analysisCoalescer.release(flightId);
+                }
+                return null;
+            });
+        };
+
+        try {
+            analysisScheduler.submit(AnalysisMode.SIMPLE, flightId, task);
+        } catch (AnalysisRejectedException e) {
+            // Requests that attached in the meantime are told over WebSocket
+            analysisCoalescer.seal(flightId);
+            analysisCoalescer.detach(analysisId);
+            webSocketService.sendClaudeError(flightId, e.getMessage());
+            analysisCoalescer.release(flightId);
+            return tooManyRequests(response, e);
+        }
 
-                // Execute Claude analysis
-                String result = claudeSimpleService.executeAnalysis(request.getPrompt());
+        return ResponseEntity.accepted().body(response);
+    }
 
-                long duration = System.currentTimeMillis() - startTime;
+    /**
+     * Run several prompts in simple mode as one batch. Item results and the
+     * final aggregate arrive on /topic/claude_analysis_batch/{batchId}.
+     * POST /api/claude/analyze-batch
+     */
+    @PostMapping("/analyze-batch")
+    public ResponseEntity<ClaudeBatchResponse> analyzeBatch(
+            @RequestBody ClaudeBatchRequest request) {
 
-                // Send completion via WebSocket
-                webSocketService.sendClaudeComplete(analysisId, result, duration);
+        List<String> prompts = request.getPrompts();
+        logger.info("Batch analysis request: {} prompts, parallelism={}",
+                prompts == null ? 0 : prompts.size(), request.getParallelism());
 
-            } catch (Exception e) {
-                logger.error("Error in simple analysis: {}", e.getMessage(), e);
-                webSocketService.sendClaudeError(analysisId, e.getMessage());
-            }
-        });
+        // Validate input
+        String error = null;
+        if (prompts == null || prompts.isEmpty()) {
+            error = "At least one prompt is required";
+        } else if (prompts.size() > guiConfiguration.getBatchMaxItems()) {
+            error = "A batch may have at most " + guiConfiguration.getBatchMaxItems() + " prompts";
+        } else if (prompts.stream().anyMatch(prompt -> prompt == null || prompt.trim().isEmpty())) {
+            error = "Prompts must not be empty";
+        }
+        if (error != null) {
+            ClaudeBatchResponse errorResponse = new ClaudeBatchResponse();
+            errorResponse.setError(error);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
 
+        String batchId = batchAnalysisService.submit(prompts, request.getParallelism(), request.isBypassCache());
+        ClaudeBatchResponse response = new ClaudeBatchResponse(batchId);
+        response.setItemCount(prompts.size());
+        response.setParallelism(batchAnalysisService.effectiveParallelism(request.getParallelism()));
         return ResponseEntity.accepted().body(response);
     }
 
@@ -87,7 +259,8 @@ public class ClaudeController {
      */
     @PostMapping("/analyze-mcp")
     public ResponseEntity<ClaudeAnalysisResponse> analyzeMcp(
-            @RequestBody ClaudeAnalysisRequest request) {
+            @RequestBody ClaudeAnalysisRequest request,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
 
         logger.info("MCP analysis request: prompt='{}', conversationId={}",
                    request.getPrompt(), request.getConversationId());
@@ -99,56 +272,322 @@ public class ClaudeController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
 
-        // Generate analysis ID (use existing conversationId if provided)
+        // Clustered: a follow-up turn runs on the node owning its conversation
+        String conversationId = request.getConversationId();
+        if (conversationId != null && forwardedBy == null && !clusterMembership.isLocal(conversationId)) {
+            ResponseEntity<ClaudeAnalysisResponse> forwarded = clusterForwarder.forward(
+                    clusterMembership.ownerOf(conversationId), "POST", "/api/claude/analyze-mcp",
+                    request, ClaudeAnalysisResponse.class);
+            if (forwarded != null) {
+                return forwarded;
+            }
+            // Owner unreachable and taken out of the ring; this node takes over
+        }
+
+        // Continuing a conversation whose history was evicted cannot work
+        if (claudeMcpService.isConversationExpired(request.getConversationId())) {
+            ClaudeAnalysisResponse errorResponse = new ClaudeAnalysisResponse(request.getConversationId());
+            errorResponse.setMode("mcp");
+            errorResponse.setConversationId(request.getConversationId());
+            errorResponse.setError("Conversation has expired, please start a new conversation");
+            return ResponseEntity.status(HttpStatus.GONE).body(errorResponse);
+        }
+
+        // Generate analysis ID (use existing conversationId if provided);
+        // a new conversation gets an id this node owns
         String analysisId = request.getConversationId() != null
             ? request.getConversationId()
-            : UUID.randomUUID().toString();
+            : clusterMembership.newConversationId();
 
         ClaudeAnalysisResponse response = new ClaudeAnalysisResponse(analysisId);
         response.setMode("mcp");
         response.setConversationId(analysisId);
 
-        // Execute asynchronously
-        CompletableFuture.runAsync(() -> {
-            try {
-                long startTime = System.currentTimeMillis();
+        // Execute asynchronously after the conversation's earlier turns, once an MCP-mode slot is free
+        Supplier<CompletableFuture<?>> task = () -> {
+            long startTime = System.currentTimeMillis();
+
+            // The conversation id is reused per turn; late subscribers must not get the last turn's events
+            analysisEventBuffer.reset(analysisId);
+
+            webSocketService.sendClaudeStarted(analysisId, "Starting conversation...");
+
+            // Execute Claude MCP analysis
+            return claudeMcpService.executeAnalysis(
+                request.getPrompt(),
+                analysisId,
+                request.getConversationId()
+            ).handle((result, error) -> {
+                if (error == null) {
+                    long duration = System.currentTimeMillis() - startTime;
+
+                    // Send completion via WebSocket
+                    webSocketService.sendClaudeComplete(analysisId, result, duration);
+                } else {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof ProcessCancelledException) {
+                        webSocketService.sendClaudeCancelled(analysisId, ((ProcessCancelledException) cause).getReason());
+                    } else {
+                        logger.error("Error in MCP analysis: {}", cause.getMessage(), cause);
+                        webSocketService.sendClaudeError(analysisId, cause.getMessage());
+                    }
+                }
+                return null;
+            });
+        };
+
+        try {
+            conversationMailbox.submit(analysisId, task);
+        } catch (AnalysisRejectedException e) {
+            return tooManyRequests(response, e);
+        }
+
+        return ResponseEntity.accepted().body(response);
+    }
 
-                webSocketService.sendClaudeProgress(analysisId, "Starting conversation...");
+    /**
+     * Cancel a queued or running analysis
+     * DELETE /api/claude/analysis/{analysisId}
+     */
+    @DeleteMapping("/analysis/{analysisId}")
+    public ResponseEntity<Map<String, Object>> cancelAnalysis(
+            @PathVariable String analysisId,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
+        logger.info("Cancel request for analysis {}", analysisId);
+
+        AnalysisCanceller.Outcome outcome = analysisCanceller.cancel(analysisId, "requested");
+        if (outcome == AnalysisCanceller.Outcome.NOT_FOUND) {
+            // Clustered: the analysis may be running on another node
+            ResponseEntity<Map<String, Object>> remote = askPeers(analysisId, forwardedBy,
+                    node -> clusterForwarder.forward(
+                            node, "DELETE", "/api/claude/analysis/" + encode(analysisId), null, JSON_OBJECT));
+            return remote != null ? remote : ResponseEntity.notFound().build();
+        }
 
-                // Execute Claude MCP analysis
-                String result = claudeMcpService.executeAnalysis(
-                    request.getPrompt(),
-                    analysisId,
-                    request.getConversationId()
-                );
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("analysisId", analysisId);
+        body.put("cancelled", true);
+        // Another request shares the run, so the process keeps going for it
+        body.put("detached", outcome == AnalysisCanceller.Outcome.DETACHED);
+        return ResponseEntity.ok(body);
+    }
 
-                long duration = System.currentTimeMillis() - startTime;
+    /**
+     * Buffered events of an analysis after the given sequence number, for
+     * clients that missed them over WebSocket
+     * GET /api/claude/analysis/{analysisId}/events?since=seq
+     */
+    @GetMapping("/analysis/{analysisId}/events")
+    public ResponseEntity<Map<String, Object>> getEvents(
+            @PathVariable String analysisId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
+        List<AnalysisEventBuffer.ReplayEvent> events = analysisEventBuffer.since(analysisId, since);
+        if (events == null) {
+            // Clustered: the events are buffered on the node that ran the analysis
+            ResponseEntity<Map<String, Object>> remote = askPeers(analysisId, forwardedBy,
+                    node -> clusterForwarder.forward(
+                            node, "GET", "/api/claude/analysis/" + encode(analysisId) + "/events?since=" + since,
+                            null, JSON_OBJECT));
+            return remote != null ? remote : ResponseEntity.notFound().build();
+        }
 
-                // Send completion via WebSocket
-                webSocketService.sendClaudeComplete(analysisId, result, duration);
+        List<Map<String, Object>> body = new ArrayList<>();
+        for (AnalysisEventBuffer.ReplayEvent event : events) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("seq", event.getSeq());
+            entry.put("topic", event.getTopicPrefix() + analysisId);
+            entry.put("payload", event.getPayload());
+            body.add(entry);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("analysisId", analysisId);
+        response.put("events", body);
+        return ResponseEntity.ok(response);
+    }
 
-            } catch (Exception e) {
-                logger.error("Error in MCP analysis: {}", e.getMessage(), e);
-                webSocketService.sendClaudeError(analysisId, e.getMessage());
+    /**
+     * Stored result of an analysis, streamed from disk; Range requests are
+     * answered with 206 and the requested bytes only
+     * GET /api/claude/results/{resultId}
+     */
+    @GetMapping("/results/{resultId}")
+    public ResponseEntity<Resource> getResult(
+            @PathVariable String resultId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
+        Path file = resultStore.find(resultId);
+        if (file == null) {
+            // Clustered: the result is stored on the node that produced it
+            ResponseEntity<InputStreamResource> remote = askPeers(resultId, forwardedBy,
+                    node -> clusterForwarder.forwardGet(node, "/api/claude/results/" + encode(resultId),
+                            range == null ? Map.of() : Map.of(HttpHeaders.RANGE, range)));
+            if (remote == null) {
+                return ResponseEntity.notFound().build();
             }
-        });
-
-        return ResponseEntity.accepted().body(response);
+            return ResponseEntity.status(remote.getStatusCode())
+                    .headers(remote.getHeaders())
+                    .body(remote.getBody());
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(new FileSystemResource(file));
     }
 
     /**
-     * Get Claude Code status
+     * Get Claude Code status from the last background probe
      * GET /api/claude/status
      */
     @GetMapping("/status")
     public ResponseEntity<ClaudeStatusResponse> getStatus() {
         ClaudeStatusResponse status = new ClaudeStatusResponse();
 
-        boolean claudeAvailable = claudeSimpleService.isClaudeAvailable();
+        ClaudeHealth health = claudeHealthProber.current();
+        boolean claudeAvailable = health.isAvailable();
         status.setClaudeAvailable(claudeAvailable);
         status.setSimpleMode(claudeAvailable);
         status.setMcpMode(claudeAvailable);
+        status.setVersion(health.getVersion());
+        if (health.getCheckedAt() > 0) {
+            status.setLatencyMs(health.getLatencyMs());
+            status.setCheckedAt(health.getCheckedAt());
+        }
+        status.setError(health.getError());
 
         return ResponseEntity.ok(status);
     }
+
+    /**
+     * Runtime counters of the execution pipeline
+     * GET /api/claude/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        Map<String, Object> scheduler = new LinkedHashMap<>();
+        for (AnalysisMode mode : AnalysisMode.values()) {
+            scheduler.put(mode.getTag(), Map.of(
+                "running", analysisScheduler.getRunningCount(mode),
+                "queued", analysisScheduler.getQueuedCount(mode)
+            ));
+        }
+        stats.put("scheduler", scheduler);
+
+        stats.put("coalescing", Map.of(
+            "inFlight", analysisCoalescer.getInFlightCount(),
+            "started", analysisCoalescer.getStarted(),
+            "attached", analysisCoalescer.getAttached()
+        ));
+
+        stats.put("processes", Map.of(
+            "live", processSupervisor.getLiveCount(),
+            "readerThreads", processSupervisor.getReaderThreadCount()
+        ));
+
+        stats.put("warmPool", Map.of(
+            "hits", warmProcessPool.getHits(),
+            "misses", warmProcessPool.getMisses(),
+            "discarded", warmProcessPool.getDiscarded(),
+            "idle", warmProcessPool.getIdleCount()
+        ));
+
+        stats.put("progress", webSocketService.getProgressStats());
+
+        stats.put("responseCache", Map.of(
+            "memoryHits", responseCache.getMemoryHits(),
+            "diskHits", responseCache.getDiskHits(),
+            "misses", responseCache.getMisses(),
+            "memoryEntries", responseCache.getMemoryEntries(),
+            "diskBytes", responseCache.getDiskBytes()
+        ));
+
+        stats.put("batches", Map.of(
+            "active", batchAnalysisService.getActiveCount(),
+            "started", batchAnalysisService.getStarted(),
+            "retries", batchAnalysisService.getRetries()
+        ));
+
+        stats.put("replay", Map.of(
+            "analyses", analysisEventBuffer.getAnalysisCount(),
+            "bufferedBytes", analysisEventBuffer.getBufferedBytes(),
+            "recorded", analysisEventBuffer.getRecorded(),
+            "replayed", analysisEventBuffer.getReplayed(),
+            "evicted", analysisEventBuffer.getEvicted()
+        ));
+
+        stats.put("resultStore", Map.of(
+            "stored", resultStore.getStored(),
+            "served", resultStore.getServed(),
+            "held", resultStore.getStoredCount(),
+            "diskBytes", resultStore.getStoredBytes()
+        ));
+
+        stats.put("conversations", Map.of(
+            "held", conversationCache.getSize(),
+            "retainedBytes", conversationCache.getRetainedBytes(),
+            "hitRate", conversationCache.getHitRate(),
+            "sizeEvictions", conversationCache.getSizeEvictions(),
+            "idleEvictions", conversationCache.getIdleEvictions(),
+            "turnsInProgress", conversationMailbox.getActiveCount()
+        ));
+
+        stats.put("sessions", Map.of(
+            "mapped", sessionRegistry.getSessionCount(),
+            "resumedTurns", sessionRegistry.getResumedTurns(),
+            "replayedTurns", sessionRegistry.getReplayedTurns(),
+            "expired", sessionRegistry.getExpiredSessions(),
+            "avgResumedPromptBytes", sessionRegistry.getAverageResumedPromptBytes(),
+            "avgReplayedPromptBytes", sessionRegistry.getAverageReplayedPromptBytes()
+        ));
+
+        if (clusterMembership.isEnabled()) {
+            stats.put("cluster", Map.of(
+                "self", clusterMembership.getSelfUrl(),
+                "liveNodes", clusterMembership.getLiveNodes()
+            ));
+        }
+
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * The exception behind a failed future
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Ask the other nodes of the cluster about an id unknown here, the
+     * owner first; null if no node knows it or the request was already
+     * forwarded to this node
+     */
+    private <T> ResponseEntity<T> askPeers(String id, String forwardedBy, Function<String, ResponseEntity<T>> call) {
+        if (forwardedBy != null || !clusterMembership.isEnabled()) {
+            return null;
+        }
+        for (String node : clusterMembership.peersFor(id)) {
+            ResponseEntity<T> response = call.apply(node);
+            if (response != null && response.getStatusCode() != HttpStatus.NOT_FOUND) {
+                return response;
+            }
+        }
+        return null;
+    }
+
+    private static String encode(String pathSegment) {
+        return UriUtils.encodePathSegment(pathSegment, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 429 answer for an analysis that did not fit into the wait queue
+     */
+    private ResponseEntity<ClaudeAnalysisResponse> tooManyRequests(
+            ClaudeAnalysisResponse response, AnalysisRejectedException e) {
+        response.setError(e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
 }
@@ -0,0 +1,39 @@
+package com.funit.claudegui.controller;
+
+import com.funit.claudegui.service.execution.AnalysisCanceller;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+/**
+ * STOMP counterpart of the REST API, for clients that already hold a
+ * WebSocket connection. Results are reported on the analysis' topics.
+ */
+@Controller
+public class ClaudeMessageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaudeMessageController.class);
+
+    @Autowired
+    private AnalysisCanceller analysisCanceller;
+
+    /**
+     * Cancel a queued or running analysis
+     * SEND /app/claude/cancel {"analysisId": "..."}
+     */
+    @MessageMapping("/claude/cancel")
+    public void cancelAnalysis(Map<String, String> payload) {
+        String analysisId = payload.get("analysisId");
+        if (analysisId == null || analysisId.isEmpty()) {
+            logger.warn("Cancel message without analysisId");
+            return;
+        }
+
+        AnalysisCanceller.Outcome outcome = analysisCanceller.cancel(analysisId, "requested");
+        logger.info("Cancel message for analysis {}: {}", analysisId, outcome);
+    }
+}
@@ -4,6 +4,7 @@ public class ClaudeAnalysisRequest {
     private String prompt;
     private String mode; // "simple" or "mcp"
     private String conversationId; // for MCP mode
+    private boolean bypassCache; // skip the simple-mode result cache
 
     public ClaudeAnalysisRequest() {
     }
@@ -31,4 +32,12 @@ public class ClaudeAnalysisRequest {
     public void setConversationId(String conversationId) {
         this.conversationId = conversationId;
     }
+
+    public boolean isBypassCache() {
+        return bypassCache;
+    }
+
+    public void setBypassCache(boolean bypassCache) {
+        this.bypassCache = bypassCache;
+    }
 }
@@ -0,0 +1,36 @@
+package com.funit.claudegui.model.dto;
+
+import java.util.List;
+
+public class ClaudeBatchRequest {
+    private List<String> prompts;
+    private Integer parallelism; // items running at once, capped by the server
+    private boolean bypassCache; // skip the simple-mode result cache
+
+    public ClaudeBatchRequest() {
+    }
+
+    public List<String> getPrompts() {
+        return prompts;
+    }
+
+    public void setPrompts(List<String> prompts) {
+        this.prompts = prompts;
+    }
+
+    public Integer getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isBypassCache() {
+        return bypassCache;
+    }
+
+    public void setBypassCache(boolean bypassCache) {
+        this.bypassCache = bypassCache;
+    }
+}
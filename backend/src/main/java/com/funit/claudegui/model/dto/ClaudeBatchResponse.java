@@ -0,0 +1,47 @@
+package com.funit.claudegui.model.dto;
+
+public class ClaudeBatchResponse {
+    private String batchId;
+    private int itemCount;
+    private int parallelism;
+    private String error;
+
+    public ClaudeBatchResponse() {
+    }
+
+    public ClaudeBatchResponse(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
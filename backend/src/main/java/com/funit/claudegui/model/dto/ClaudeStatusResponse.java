@@ -4,6 +4,9 @@ public class ClaudeStatusResponse {
     private boolean claudeAvailable;
     private boolean simpleMode;
     private boolean mcpMode;
+    private String version;
+    private Long latencyMs;
+    private Long checkedAt;
     private String error;
 
     public ClaudeStatusResponse() {
@@ -33,6 +36,30 @@ public class ClaudeStatusResponse {
         this.mcpMode = mcpMode;
     }
 
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public Long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(Long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public Long getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(Long checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
     public String getError() {
         return error;
     }
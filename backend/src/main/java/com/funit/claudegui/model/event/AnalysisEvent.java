@@ -0,0 +1,59 @@
+package com.funit.claudegui.model.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Payload of a message on a per-analysis topic. Fields left null are not
+ * serialized, so an event carries only what it sets.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public abstract class AnalysisEvent implements Cloneable {
+
+    private long timestamp = System.currentTimeMillis();
+    private Long eventSeq;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Sequence number of the event in the analysis' replay buffer, null
+     * when replay is disabled
+     */
+    public Long getEventSeq() {
+        return eventSeq;
+    }
+
+    public void setEventSeq(Long eventSeq) {
+        this.eventSeq = eventSeq;
+    }
+
+    /**
+     * Shallow copy carrying the given sequence number; one event published
+     * to several analyses is numbered separately for each
+     */
+    public AnalysisEvent withEventSeq(long eventSeq) {
+        try {
+            AnalysisEvent copy = (AnalysisEvent) clone();
+            copy.eventSeq = eventSeq;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Rough heap size: strings at two bytes per char plus object overhead
+     */
+    public long estimateBytes() {
+        return 48;
+    }
+
+    protected static long estimate(String value) {
+        return value != null ? 40 + 2L * value.length() : 0;
+    }
+}
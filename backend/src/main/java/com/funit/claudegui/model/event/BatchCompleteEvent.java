@@ -0,0 +1,147 @@
+package com.funit.claudegui.model.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Aggregate of a batch once every item is done
+ */
+public class BatchCompleteEvent extends BatchEvent {
+
+    private int totalItems;
+    private int succeeded;
+    private int failed;
+    private int cancelled;
+    private long durationMs;
+    private List<ItemSummary> items;
+    private String cancelReason;
+
+    public BatchCompleteEvent(String batchId) {
+        super(batchId);
+    }
+
+    @Override
+    public String getType() {
+        return "complete";
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(int totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public int getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(int cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * Outcome of every item, in submission order
+     */
+    public List<ItemSummary> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemSummary> items) {
+        this.items = items;
+    }
+
+    /**
+     * Why the batch was cancelled, absent if it was not
+     */
+    public String getCancelReason() {
+        return cancelReason;
+    }
+
+    public void setCancelReason(String cancelReason) {
+        this.cancelReason = cancelReason;
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = super.estimateBytes() + 48 + estimate(cancelReason);
+        if (items != null) {
+            bytes += 40;
+            for (ItemSummary item : items) {
+                bytes += 8 + item.estimateBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Final state of one item
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemSummary {
+
+        private final int index;
+        private final String status;
+        private final int attempts;
+        private final long durationMs;
+        private final String error;
+
+        public ItemSummary(int index, String status, int attempts, long durationMs, String error) {
+            this.index = index;
+            this.status = status;
+            this.attempts = attempts;
+            this.durationMs = durationMs;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        long estimateBytes() {
+            return 40 + estimate(status) + estimate(error);
+        }
+    }
+}
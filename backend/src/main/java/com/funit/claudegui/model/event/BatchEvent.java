@@ -0,0 +1,29 @@
+package com.funit.claudegui.model.event;
+
+/**
+ * An event of a batch on the batch's topic; {@link #getType()} tells an
+ * item that finished, an item that is retried and the batch's aggregate apart
+ */
+public abstract class BatchEvent extends AnalysisEvent {
+
+    private String batchId;
+
+    protected BatchEvent(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public abstract String getType();
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 16 + estimate(batchId);
+    }
+}
@@ -0,0 +1,135 @@
+package com.funit.claudegui.model.event;
+
+/**
+ * An item of a batch that is done, carrying its result inline or the URL
+ * of the stored result
+ */
+public class BatchItemEvent extends BatchEvent {
+
+    private int index;
+    private String analysisId;
+    private String status;
+    private int attempts;
+    private long durationMs;
+    private boolean fromCache;
+    private int completedItems;
+    private int totalItems;
+    private String error;
+    private String result;
+    private String resultUrl;
+    private Long resultBytes;
+
+    public BatchItemEvent(String batchId) {
+        super(batchId);
+    }
+
+    @Override
+    public String getType() {
+        return "item";
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public void setAnalysisId(String analysisId) {
+        this.analysisId = analysisId;
+    }
+
+    /**
+     * completed, failed or cancelled
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    public void setFromCache(boolean fromCache) {
+        this.fromCache = fromCache;
+    }
+
+    public int getCompletedItems() {
+        return completedItems;
+    }
+
+    public void setCompletedItems(int completedItems) {
+        this.completedItems = completedItems;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(int totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getResultUrl() {
+        return resultUrl;
+    }
+
+    public void setResultUrl(String resultUrl) {
+        this.resultUrl = resultUrl;
+    }
+
+    public Long getResultBytes() {
+        return resultBytes;
+    }
+
+    public void setResultBytes(Long resultBytes) {
+        this.resultBytes = resultBytes;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 64 + estimate(analysisId) + estimate(status) + estimate(error)
+                + estimate(result) + estimate(resultUrl);
+    }
+}
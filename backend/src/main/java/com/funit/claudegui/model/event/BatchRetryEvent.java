@@ -0,0 +1,58 @@
+package com.funit.claudegui.model.event;
+
+/**
+ * A failed item of a batch that is tried again after a backoff
+ */
+public class BatchRetryEvent extends BatchEvent {
+
+    private int index;
+    private int attempts;
+    private long retryInMs;
+    private String error;
+
+    public BatchRetryEvent(String batchId) {
+        super(batchId);
+    }
+
+    @Override
+    public String getType() {
+        return "retry";
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getRetryInMs() {
+        return retryInMs;
+    }
+
+    public void setRetryInMs(long retryInMs) {
+        this.retryInMs = retryInMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 24 + estimate(error);
+    }
+}
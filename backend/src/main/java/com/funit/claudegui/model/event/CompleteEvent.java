@@ -0,0 +1,68 @@
+package com.funit.claudegui.model.event;
+
+/**
+ * Completion of an analysis, carrying the result inline or the URL of the
+ * stored result
+ */
+public class CompleteEvent extends AnalysisEvent {
+
+    private String analysisId;
+    private String result;
+    private String resultUrl;
+    private Long resultBytes;
+    private boolean completed = true;
+    private Long durationMs;
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public void setAnalysisId(String analysisId) {
+        this.analysisId = analysisId;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getResultUrl() {
+        return resultUrl;
+    }
+
+    public void setResultUrl(String resultUrl) {
+        this.resultUrl = resultUrl;
+    }
+
+    public Long getResultBytes() {
+        return resultBytes;
+    }
+
+    public void setResultBytes(Long resultBytes) {
+        this.resultBytes = resultBytes;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 48 + estimate(analysisId) + estimate(result) + estimate(resultUrl);
+    }
+}
@@ -0,0 +1,81 @@
+package com.funit.claudegui.model.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * An incremental piece of Claude output: a text chunk, a tool use or the
+ * final result
+ */
+public class DeltaEvent extends AnalysisEvent {
+
+    private long seq;
+    private String kind;
+    private String text;
+    private String toolName;
+    private JsonNode toolInput;
+    private Boolean error;
+
+    /**
+     * Position of the delta in the analysis' output
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getToolName() {
+        return toolName;
+    }
+
+    public void setToolName(String toolName) {
+        this.toolName = toolName;
+    }
+
+    public JsonNode getToolInput() {
+        return toolInput;
+    }
+
+    public void setToolInput(JsonNode toolInput) {
+        this.toolInput = toolInput;
+    }
+
+    /**
+     * True for an error result, absent otherwise
+     */
+    public Boolean getError() {
+        return error;
+    }
+
+    public void setError(Boolean error) {
+        this.error = error;
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = super.estimateBytes() + 40 + estimate(kind) + estimate(text) + estimate(toolName);
+        if (toolInput != null) {
+            // Tree nodes weigh about as much as their text
+            bytes += estimate(toolInput.toString());
+        }
+        return bytes;
+    }
+}
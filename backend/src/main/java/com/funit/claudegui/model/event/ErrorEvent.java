@@ -0,0 +1,50 @@
+package com.funit.claudegui.model.event;
+
+/**
+ * Failure or cancellation of an analysis
+ */
+public class ErrorEvent extends AnalysisEvent {
+
+    private String error;
+    private boolean failed = true;
+    private Boolean cancelled;
+
+    public ErrorEvent() {
+    }
+
+    public ErrorEvent(String error) {
+        this.error = error;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * True when the analysis was cancelled, absent for other failures
+     */
+    public Boolean getCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(Boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 24 + estimate(error);
+    }
+}
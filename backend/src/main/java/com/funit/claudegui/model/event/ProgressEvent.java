@@ -0,0 +1,84 @@
+package com.funit.claudegui.model.event;
+
+import java.util.List;
+
+/**
+ * Progress of an analysis: output lines batched into one frame, its
+ * position in the queue, or the turns of its conversation waiting
+ */
+public class ProgressEvent extends AnalysisEvent {
+
+    private String message;
+    private List<String> messages;
+    private Integer dropped;
+    private Integer queuePosition;
+    private Integer conversationQueueDepth;
+
+    public ProgressEvent() {
+    }
+
+    public ProgressEvent(String message) {
+        this.message = message;
+    }
+
+    /**
+     * The newest line
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * All lines of a batched frame, oldest first
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<String> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Lines left out of the frame for exceeding its byte budget
+     */
+    public Integer getDropped() {
+        return dropped;
+    }
+
+    public void setDropped(Integer dropped) {
+        this.dropped = dropped;
+    }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    public Integer getConversationQueueDepth() {
+        return conversationQueueDepth;
+    }
+
+    public void setConversationQueueDepth(Integer conversationQueueDepth) {
+        this.conversationQueueDepth = conversationQueueDepth;
+    }
+
+    @Override
+    public long estimateBytes() {
+        long bytes = super.estimateBytes() + 32 + estimate(message);
+        if (messages != null) {
+            bytes += 40;
+            for (String line : messages) {
+                bytes += 8 + estimate(line);
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.funit.claudegui.model.event;
+
+/**
+ * Change in Claude CLI availability, sent to all clients
+ */
+public class StatusEvent extends AnalysisEvent {
+
+    private boolean claudeAvailable;
+    private boolean simpleMode;
+    private boolean mcpMode;
+    private String version;
+    private long latencyMs;
+    private long checkedAt;
+    private String error;
+
+    public boolean isClaudeAvailable() {
+        return claudeAvailable;
+    }
+
+    public void setClaudeAvailable(boolean claudeAvailable) {
+        this.claudeAvailable = claudeAvailable;
+    }
+
+    public boolean isSimpleMode() {
+        return simpleMode;
+    }
+
+    public void setSimpleMode(boolean simpleMode) {
+        this.simpleMode = simpleMode;
+    }
+
+    public boolean isMcpMode() {
+        return mcpMode;
+    }
+
+    public void setMcpMode(boolean mcpMode) {
+        this.mcpMode = mcpMode;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public long getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(long checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public long estimateBytes() {
+        return super.estimateBytes() + 40 + estimate(version) + estimate(error);
+    }
+}
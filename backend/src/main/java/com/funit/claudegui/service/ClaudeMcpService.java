@@ -1,14 +1,30 @@
 package com.funit.claudegui.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.conversation.ConversationCache;
+import com.funit.claudegui.service.conversation.ConversationPrompt;
+import com.funit.claudegui.service.conversation.HistoryPolicy;
+import com.funit.claudegui.service.conversation.SessionRegistry;
+import com.funit.claudegui.service.execution.AnalysisMode;
+import com.funit.claudegui.service.metrics.ClaudeMetrics;
+import com.funit.claudegui.service.process.LineSplitter;
+import com.funit.claudegui.service.process.ProcessCancelledException;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import com.funit.claudegui.service.process.SupervisedProcess;
+import com.funit.claudegui.service.stream.ClaudeStreamParser;
+import com.funit.claudegui.service.stream.StreamDelta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing Claude Code CLI with conversation support
@@ -22,8 +38,42 @@ public class ClaudeMcpService {
     @Autowired
     private WebSocketOutboundService webSocketService;
 
-    // Conversation storage: conversationId -> List of messages
-    private final Map<String, List<ConversationMessage>> conversations = new ConcurrentHashMap<>();
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HistoryPolicy historyPolicy;
+
+    @Autowired
+    private ConversationCache conversationCache;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ClaudeMetrics claudeMetrics;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    // How the CLI learns the history of a turn, as tagged on the turn metrics
+    private static final String PATH_RESUME = "resume";
+    private static final String PATH_REPLAY = "replay";
+
+    // What the CLI prints when asked to resume a session it does not have
+    private static final String SESSION_NOT_FOUND = "No conversation found";
+
+    /**
+     * A resumed turn failed because the CLI does not know its session
+     */
+    private static class SessionNotFoundException extends RuntimeException {
+        SessionNotFoundException() {
+            super("Claude CLI session not found", null, false, false);
+        }
+    }
 
     public static class ConversationMessage {
         public String role;
@@ -36,132 +86,229 @@ public class ClaudeMcpService {
     }
 
     /**
-     * Execute analysis with conversation support
+     * Execute analysis with conversation support; the future completes with
+     * the result text once the turn has been stored.
+     *
+     * With session resume enabled, a conversation whose CLI session is
+     * known sends only the new message with --resume; otherwise, or when
+     * the CLI has lost the session, the history is replayed into the prompt
+     * of a new session.
      */
-    public String executeAnalysis(String prompt, String analysisId, String conversationId) {
+    public CompletableFuture<String> executeAnalysis(String prompt, String analysisId, String conversationId) {
         logger.info("Starting MCP analysis: analysisId={}, conversationId={}", analysisId, conversationId);
 
+        String conversationKey = (conversationId != null && !conversationId.isEmpty()) ? conversationId : analysisId;
+        String sessionId = guiConfiguration.isMcpSessionResume() ? sessionRegistry.get(conversationKey) : null;
+        if (sessionId == null) {
+            return runTurn(prompt, analysisId, conversationId, conversationKey, null);
+        }
+
+        return runTurn(prompt, analysisId, conversationId, conversationKey, sessionId)
+            .exceptionallyCompose(error -> {
+                if (!(unwrap(error) instanceof SessionNotFoundException)) {
+                    return CompletableFuture.failedFuture(error);
+                }
+                logger.info("CLI session {} of conversation {} is gone, replaying the history", sessionId, conversationKey);
+                sessionRegistry.sessionExpired(conversationKey);
+                webSocketService.sendClaudeProgress(analysisId, "Session expired, replaying conversation history...");
+                return runTurn(prompt, analysisId, conversationId, conversationKey, null);
+            });
+    }
+
+    /**
+     * Run one CLI process for the turn, resuming the given session or, if
+     * it is null, with the history in the prompt
+     */
+    private CompletableFuture<String> runTurn(String userPrompt, String analysisId, String conversationId,
+                                              String conversationKey, String resumeSessionId) {
+        long turnStart = System.nanoTime();
+        boolean resumed = resumeSessionId != null;
+        // A replayed turn starts the session later turns resume
+        String sessionId = resumed ? resumeSessionId
+            : guiConfiguration.isMcpSessionResume() ? UUID.randomUUID().toString() : null;
+
         try {
-            String userPrompt = prompt;
-            String enhancedPrompt = buildPromptWithHistory(userPrompt, conversationId);
+            String enhancedPrompt = resumed ? userPrompt : buildPromptWithHistory(userPrompt, analysisId, conversationId);
+            long promptBytes = enhancedPrompt.getBytes(StandardCharsets.UTF_8).length;
+            if (resumed) {
+                logger.info("MCP prompt for conversation {}: {} bytes, resuming CLI session {}",
+                        conversationKey, promptBytes, resumeSessionId);
+                webSocketService.sendClaudeProgress(analysisId, "Resuming session, prompt size: " + promptBytes + " bytes");
+            }
+            sessionRegistry.countTurn(resumed, promptBytes);
+            String path = resumed ? PATH_RESUME : PATH_REPLAY;
 
             webSocketService.sendClaudeProgress(analysisId, "Initializing Claude...");
 
-            ProcessBuilder pb = new ProcessBuilder(
-                "claude",
-                "--print",
-                "--output-format", "text",
-                "--dangerously-skip-permissions"
-            );
+            boolean streaming = guiConfiguration.isMcpStreaming();
+            ProcessBuilder pb = new ProcessBuilder(buildCommand(streaming, sessionId, resumed));
 
             pb.redirectErrorStream(false);
 
+            long spawnStart = System.nanoTime();
             Process process = pb.start();
+            claudeMetrics.recordSpawn(AnalysisMode.MCP, System.nanoTime() - spawnStart);
+
+            StringBuilder result = new StringBuilder();
+            StringBuilder errors = new StringBuilder();
+            ClaudeStreamParser streamParser = streaming ? new ClaudeStreamParser(objectMapper) : null;
+            AtomicLong deltaSeq = new AtomicLong();
+            // Stream events are parsed as they arrive; their parse time adds up to one sample
+            AtomicLong parseNanos = new AtomicLong();
+
+            LineSplitter stdoutLines = new LineSplitter(line -> {
+                if (streamParser != null) {
+                    long parseStart = System.nanoTime();
+                    List<StreamDelta> deltas = streamParser.accept(line);
+                    parseNanos.addAndGet(System.nanoTime() - parseStart);
+                    for (StreamDelta delta : deltas) {
+                        webSocketService.sendClaudeDelta(analysisId, deltaSeq.incrementAndGet(), delta);
+                        if (StreamDelta.KIND_TOOL_USE.equals(delta.getKind())) {
+                            webSocketService.sendClaudeProgress(analysisId, "Using tool: " + delta.getToolName());
+                        }
+                    }
+                    return;
+                }
+                result.append(line).append("\n");
+                String preview = line.substring(0, Math.min(100, line.length()));
+                webSocketService.sendClaudeProgress(analysisId, "Processing: " + preview);
+            });
+            LineSplitter stderrLines = new LineSplitter(line -> errors.append(line).append("\n"));
+
+            SupervisedProcess supervised = processSupervisor.supervise(analysisId, process, stdoutLines, stderrLines,
+                processSupervisor.getDefaultTimeoutMs());
 
-            try (BufferedWriter stdinWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()))) {
+            try (BufferedWriter stdinWriter = new BufferedWriter(
+                    new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8))) {
                 stdinWriter.write(enhancedPrompt);
                 stdinWriter.newLine();
                 stdinWriter.flush();
             } catch (IOException e) {
                 logger.error("Failed to write prompt to stdin: {}", e.getMessage());
+                supervised.terminate();
                 throw new RuntimeException("Failed to write prompt to Claude: " + e.getMessage(), e);
             }
 
-            BufferedReader stdoutReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            BufferedReader stderrReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-
-            StringBuilder result = new StringBuilder();
-            StringBuilder errors = new StringBuilder();
-
-            Thread stdoutThread = new Thread(() -> {
-                try {
-                    String line;
-                    while ((line = stdoutReader.readLine()) != null) {
-                        result.append(line).append("\n");
-                        String preview = line.substring(0, Math.min(100, line.length()));
-                        webSocketService.sendClaudeProgress(analysisId, "Processing: " + preview);
-                    }
-                } catch (IOException e) {
-                    logger.error("Error reading stdout: {}", e.getMessage());
+            return supervised.completion().handle((exitCode, error) -> {
+                claudeMetrics.recordProcess(AnalysisMode.MCP, supervised, exitCode, error);
+                if (streamParser != null) {
+                    claudeMetrics.recordParse(AnalysisMode.MCP, parseNanos.get());
                 }
-            });
-
-            Thread stderrThread = new Thread(() -> {
                 try {
-                    String line;
-                    while ((line = stderrReader.readLine()) != null) {
-                        errors.append(line).append("\n");
+                    String resultText = resultOf(exitCode, error, streamParser, result, errors, resumed);
+
+                    // Store conversation history
+                    List<ConversationMessage> turn = List.of(
+                        new ConversationMessage("user", userPrompt),
+                        new ConversationMessage("assistant", resultText)
+                    );
+                    conversationCache.append(conversationKey, turn);
+
+                    if (sessionId != null) {
+                        // The CLI reports the session it actually used when streaming
+                        String usedSession = streamParser != null && streamParser.getSessionId() != null
+                            ? streamParser.getSessionId() : sessionId;
+                        sessionRegistry.put(conversationKey, usedSession);
                     }
-                } catch (IOException e) {
-                    logger.error("Error reading stderr: {}", e.getMessage());
+                    claudeMetrics.recordTurn(path, promptBytes, System.nanoTime() - turnStart, true);
+                    return resultText;
+                } catch (RuntimeException e) {
+                    if (sessionId != null && !(e instanceof SessionNotFoundException)) {
+                        // The session may hold part of a turn the history does not; start over from the history
+                        sessionRegistry.remove(conversationKey);
+                    }
+                    claudeMetrics.recordTurn(path, promptBytes, System.nanoTime() - turnStart, false);
+                    throw e;
                 }
             });
 
-            stdoutThread.start();
-            stderrThread.start();
-
-            boolean finished = process.waitFor(10, TimeUnit.MINUTES);
-
-            if (!finished) {
-                process.destroyForcibly();
-                stdoutThread.join(2000);
-                stderrThread.join(2000);
-                throw new RuntimeException("Claude process timed out after 10 minutes");
-            }
-
-            stdoutThread.join(5000);
-            stderrThread.join(5000);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(failure(e));
+        }
+    }
 
-            int exitCode = process.exitValue();
+    private static String resultOf(Integer exitCode, Throwable error, ClaudeStreamParser streamParser,
+                                   StringBuilder result, StringBuilder errors, boolean resumed) {
+        if (error != null) {
+            throw failure(error);
+        }
 
-            if (exitCode != 0) {
-                throw new RuntimeException("Claude process failed with exit code " + exitCode + ". Stderr: " + errors.toString());
+        if (exitCode != 0) {
+            if (resumed && errors.indexOf(SESSION_NOT_FOUND) >= 0) {
+                throw new SessionNotFoundException();
             }
+            throw failure(new RuntimeException("Claude process failed with exit code " + exitCode + ". Stderr: " + errors.toString()));
+        }
 
-            String resultText = result.toString().trim();
-            if (resultText.isEmpty()) {
-                throw new RuntimeException("Claude returned empty response");
-            }
+        if (streamParser != null && streamParser.isResultError()) {
+            throw failure(new RuntimeException("Claude error: " + streamParser.getResultText()));
+        }
 
-            // Store conversation history
-            String conversationKey = (conversationId != null && !conversationId.isEmpty()) ? conversationId : analysisId;
-            conversations.computeIfAbsent(conversationKey, k -> new ArrayList<>());
-            List<ConversationMessage> history = conversations.get(conversationKey);
-            history.add(new ConversationMessage("user", userPrompt));
-            history.add(new ConversationMessage("assistant", resultText));
+        String resultText = (streamParser != null ? streamParser.getResultText() : result.toString()).trim();
+        if (resultText.isEmpty()) {
+            throw failure(new RuntimeException("Claude returned empty response"));
+        }
+        return resultText;
+    }
 
-            return resultText;
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 
-        } catch (Exception e) {
-            logger.error("MCP analysis error: {}", e.getMessage(), e);
-            throw new RuntimeException("MCP analysis failed: " + e.getMessage(), e);
+    private static RuntimeException failure(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof ProcessCancelledException) {
+            // Not a failure; the caller reports it as a cancellation
+            return (ProcessCancelledException) cause;
         }
+        logger.error("MCP analysis error: {}", cause.getMessage(), cause);
+        return new RuntimeException("MCP analysis failed: " + cause.getMessage(), cause);
     }
 
-    private String buildPromptWithHistory(String userPrompt, String conversationId) {
-        StringBuilder prompt = new StringBuilder();
-
-        prompt.append("You are a helpful AI assistant.\n\n");
+    /**
+     * CLI invocation; streaming mode emits one JSON event per line
+     * (stream-json requires --verbose in print mode). With a session id the
+     * turn either starts that session or, if resumed, continues it.
+     */
+    private List<String> buildCommand(boolean streaming, String sessionId, boolean resumed) {
+        List<String> command = new ArrayList<>();
+        command.add("claude");
+        command.add("--print");
+        if (streaming) {
+            command.add("--output-format");
+            command.add("stream-json");
+            command.add("--verbose");
+            if (guiConfiguration.isMcpPartialMessages()) {
+                command.add("--include-partial-messages");
+            }
+        } else {
+            command.add("--output-format");
+            command.add("text");
+        }
+        if (sessionId != null) {
+            command.add(resumed ? "--resume" : "--session-id");
+            command.add(sessionId);
+        }
+        command.add("--dangerously-skip-permissions");
+        return command;
+    }
 
+    private String buildPromptWithHistory(String userPrompt, String analysisId, String conversationId) {
+        List<ConversationMessage> history = Collections.emptyList();
         if (conversationId != null && !conversationId.isEmpty()) {
-            List<ConversationMessage> history = conversations.get(conversationId);
-            if (history != null && !history.isEmpty()) {
-                prompt.append("CONVERSATION HISTORY:\n");
-                for (ConversationMessage msg : history) {
-                    if ("user".equals(msg.role)) {
-                        prompt.append("User: ").append(msg.content).append("\n");
-                    } else {
-                        prompt.append("Assistant: ").append(msg.content).append("\n");
-                    }
-                }
-                prompt.append("\n");
+            List<ConversationMessage> stored = conversationCache.get(conversationId);
+            if (stored != null) {
+                history = stored;
             }
         }
 
-        prompt.append("USER REQUEST:\n");
-        prompt.append(userPrompt).append("\n");
+        ConversationPrompt prompt = historyPolicy.buildPrompt(conversationId, history, userPrompt);
+        logger.info("MCP prompt for conversation {}: {} chars (~{} tokens), {} recent messages verbatim, {} summarized",
+                conversationId, prompt.getText().length(), prompt.getEstimatedTokens(),
+                prompt.getVerbatimMessages(), prompt.getSummarizedMessages());
+        webSocketService.sendClaudeProgress(analysisId, "Prompt size: ~" + prompt.getEstimatedTokens() + " tokens");
 
-        return prompt.toString();
+        return prompt.getText();
     }
 
     /**
@@ -169,7 +316,7 @@ public class ClaudeMcpService {
      */
     public void clearConversation(String conversationId) {
         if (conversationId != null) {
-            conversations.remove(conversationId);
+            conversationCache.remove(conversationId);
             logger.info("Cleared conversation: {}", conversationId);
         }
     }
@@ -178,6 +325,14 @@ public class ClaudeMcpService {
      * Get conversation history
      */
     public List<ConversationMessage> getConversationHistory(String conversationId) {
-        return conversations.getOrDefault(conversationId, new ArrayList<>());
+        List<ConversationMessage> history = conversationCache.get(conversationId);
+        return history != null ? history : new ArrayList<>();
+    }
+
+    /**
+     * Whether a conversation was evicted and its history cannot be recovered
+     */
+    public boolean isConversationExpired(String conversationId) {
+        return conversationCache.isExpired(conversationId);
     }
 }
@@ -1,14 +1,28 @@
 package com.funit.claudegui.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.execution.AnalysisMode;
+import com.funit.claudegui.service.metrics.ClaudeMetrics;
+import com.funit.claudegui.service.process.OutputCapture;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import com.funit.claudegui.service.process.SupervisedProcess;
+import com.funit.claudegui.service.process.WarmProcessPool;
+import com.funit.claudegui.service.stream.ClaudeResult;
+import com.funit.claudegui.service.stream.ClaudeResultParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Simple Claude integration - spawns process with prompt
@@ -19,115 +33,176 @@ public class ClaudeSimpleService {
 
     private static final Logger logger = LoggerFactory.getLogger(ClaudeSimpleService.class);
 
+    private static final List<String> CLAUDE_COMMAND = List.of(
+        "claude",
+        "--print",
+        "--output-format", "json",
+        "--dangerously-skip-permissions"
+    );
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private WarmProcessPool warmProcessPool;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ClaudeMetrics claudeMetrics;
+
+    @PostConstruct
+    public void init() {
+        warmProcessPool.warmUp(CLAUDE_COMMAND);
+    }
+
     /**
-     * Execute a simple Claude analysis
+     * Execute a simple Claude analysis; the future completes with the result text
      */
-    public String executeAnalysis(String userPrompt) throws Exception {
-        logger.info("Executing simple Claude analysis for prompt: {}", userPrompt);
+    public CompletableFuture<String> executeAnalysis(String userPrompt) {
+        return executeAnalysis(userPrompt, null);
+    }
 
-        // Execute Claude Code process
-        String jsonResult = executeClaudeProcess(userPrompt);
+    /**
+     * Execute a simple Claude analysis whose process can be cancelled
+     * through {@link ProcessSupervisor#cancel(String)} under the given id
+     */
+    public CompletableFuture<String> executeAnalysis(String userPrompt, String analysisId) {
+        logger.info("Executing simple Claude analysis for prompt: {}", userPrompt);
 
-        // Parse and extract result
-        return parseClaudeResult(jsonResult);
+        try {
+            // Execute Claude Code process, then parse and extract result
+            return executeClaudeProcess(userPrompt, analysisId).thenApply(output -> {
+                try (output) {
+                    return parseClaudeResult(output);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
-     * Execute Claude Code process and capture output
+     * Execute Claude Code process and capture output. stdout and stderr are
+     * drained together by the supervisor, each into a size-bounded capture.
      */
-    private String executeClaudeProcess(String prompt) throws Exception {
+    private CompletableFuture<OutputCapture> executeClaudeProcess(String prompt, String analysisId) throws IOException {
         long startTime = System.currentTimeMillis();
 
-        ProcessBuilder pb = new ProcessBuilder(
-            "claude",
-            "--print",
-            "--output-format", "json",
-            "--dangerously-skip-permissions"
-        );
-
-        pb.redirectErrorStream(false);
+        // Prefer a pre-spawned process that has already gone through CLI startup
+        Process process = warmProcessPool.acquire();
+        boolean warm = process != null;
+        if (!warm) {
+            ProcessBuilder pb = new ProcessBuilder(CLAUDE_COMMAND);
+            pb.redirectErrorStream(false);
+
+            logger.info("Starting Claude process...");
+            long spawnStart = System.nanoTime();
+            process = pb.start();
+            claudeMetrics.recordSpawn(AnalysisMode.SIMPLE, System.nanoTime() - spawnStart);
+        }
 
-        logger.info("Starting Claude process...");
-        Process process = pb.start();
+        // stdout (JSON response) spills to disk when large, stderr (logs) keeps only its head
+        OutputCapture output = OutputCapture.spilling(guiConfiguration.getCaptureMemoryBytes(),
+            guiConfiguration.getCaptureMaxBytes(), guiConfiguration.getCaptureSpillDirectory());
+        OutputCapture errors = OutputCapture.truncating(guiConfiguration.getCaptureStderrBytes());
+        SupervisedProcess supervised = processSupervisor.supervise(analysisId, process, output, errors,
+            processSupervisor.getDefaultTimeoutMs());
 
         // Write prompt to stdin
-        process.getOutputStream().write(prompt.getBytes());
-        process.getOutputStream().close();
-
-        // Read stdout (JSON response)
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(prompt.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            supervised.terminate();
+            throw e;
         }
 
-        // Read stderr (logs)
-        StringBuilder errors = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getErrorStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                errors.append(line).append("\n");
+        return supervised.completion().handle((exitCode, error) -> {
+            claudeMetrics.recordProcess(AnalysisMode.SIMPLE, supervised, exitCode, error);
+            long duration = System.currentTimeMillis() - startTime;
+            if (output.getFirstDataAt() > 0) {
+                logger.info("First Claude output after {}ms ({} process)",
+                    output.getFirstDataAt() - startTime, warm ? "warm" : "cold");
             }
-        }
 
-        int exitCode = process.waitFor();
-        long duration = System.currentTimeMillis() - startTime;
+            if (error != null) {
+                output.close();
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
 
-        if (exitCode != 0) {
-            logger.error("Claude process failed with exit code: {}", exitCode);
-            logger.error("Stderr: {}", errors.toString());
-            throw new RuntimeException("Claude process failed: " + errors.toString());
-        }
+            if (exitCode != 0) {
+                output.close();
+                String stderr = describe(errors);
+                logger.error("Claude process failed with exit code: {}", exitCode);
+                logger.error("Stderr: {}", stderr);
+                throw new RuntimeException("Claude process failed: " + stderr);
+            }
 
-        logger.info("Claude process completed in {}ms", duration);
+            logger.info("Claude process completed in {}ms ({} bytes of output{})",
+                duration, output.size(), output.isSpilled() ? ", spilled to disk" : "");
 
-        String result = output.toString();
-        if (result.isEmpty()) {
-            throw new RuntimeException("Claude returned empty response");
-        }
+            if (output.size() == 0) {
+                output.close();
+                throw new RuntimeException("Claude returned empty response");
+            }
+
+            return output;
+        });
+    }
 
-        return result;
+    private static String describe(OutputCapture errors) {
+        try {
+            String text = errors.asString();
+            return errors.getDiscarded() > 0 ? text + "... (" + errors.getDiscarded() + " more bytes)" : text;
+        } catch (IOException e) {
+            return "(stderr unavailable)";
+        }
     }
 
     /**
      * Parse Claude JSON response and extract result text
      */
-    private String parseClaudeResult(String jsonOutput) throws Exception {
-        JsonNode root = objectMapper.readTree(jsonOutput);
+    private String parseClaudeResult(OutputCapture output) throws Exception {
+        ClaudeResult result;
+        long parseStart = System.nanoTime();
+        try (InputStream in = output.openStream()) {
+            result = new ClaudeResultParser(objectMapper).parse(in);
+        } finally {
+            claudeMetrics.recordParse(AnalysisMode.SIMPLE, System.nanoTime() - parseStart);
+        }
 
         // Handle error response
-        if (root.has("type") && "error".equals(root.get("type").asText())) {
-            String error = root.has("error") ? root.get("error").asText() : "Unknown error";
-            throw new RuntimeException("Claude error: " + error);
+        if (result.isErrorResponse()) {
+            throw new RuntimeException("Claude error: " + (result.getError() != null ? result.getError() : "Unknown error"));
         }
-
-        // Extract result text
-        if (root.has("result")) {
-            return root.get("result").asText();
+        if (!result.hasResult()) {
+            throw new RuntimeException("Unexpected Claude response format: " + head(output, 500));
         }
 
-        throw new RuntimeException("Unexpected Claude response format: " + jsonOutput);
+        // The cost is -1 when the CLI does not report one
+        String cost = result.getTotalCostUsd() >= 0 ? ", $" + result.getTotalCostUsd() : "";
+        logger.info("Claude reported {} ms ({} ms API), {} turns, {} input / {} output tokens{}",
+            result.getDurationMs(), result.getDurationApiMs(), result.getNumTurns(),
+            result.getInputTokens(), result.getOutputTokens(), cost);
+        return result.getResult();
     }
 
     /**
-     * Check if Claude Code is available on the system
+     * First bytes of the output for error messages
      */
-    public boolean isClaudeAvailable() {
-        try {
-            ProcessBuilder pb = new ProcessBuilder("claude", "--version");
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            return exitCode == 0;
-        } catch (Exception e) {
-            logger.warn("Claude Code not available: {}", e.getMessage());
-            return false;
+    private static String head(OutputCapture output, int maxBytes) {
+        try (InputStream in = output.openStream()) {
+            byte[] head = in.readNBytes(maxBytes + 1);
+            String text = new String(head, 0, Math.min(head.length, maxBytes), StandardCharsets.UTF_8);
+            return head.length > maxBytes ? text + "..." : text;
+        } catch (IOException e) {
+            return "(output unavailable)";
         }
     }
 }
@@ -0,0 +1,203 @@
+package com.funit.claudegui.service;
+
+import com.funit.claudegui.model.event.ProgressEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Batches progress lines per analysis into at most one frame per flush
+ * interval. Lines that do not fit into the frame's byte budget wait for the
+ * next interval; only beyond {@link #BACKLOG_FRAMES} frames of backlog are
+ * the oldest lines dropped, so a chatty process cannot flood the broker.
+ *
+ * Once an analysis is closed (its completion or error went out), lines still
+ * arriving for it are dropped until it is opened again by its next run.
+ */
+public class ProgressAggregator {
+
+    private static final int BACKLOG_FRAMES = 8;
+
+    private final int maxFrameBytes;
+    private final BiConsumer<String, ProgressEvent> frameSender;
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    private final AtomicLong linesReceived = new AtomicLong();
+    private final AtomicLong linesMerged = new AtomicLong();
+    private final AtomicLong linesDropped = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+
+    public ProgressAggregator(int maxFrameBytes, BiConsumer<String, ProgressEvent> frameSender) {
+        this.maxFrameBytes = maxFrameBytes;
+        this.frameSender = frameSender;
+    }
+
+    /**
+     * Add a line to the analysis' pending lines
+     */
+    public void append(String analysisId, String message) {
+        linesReceived.incrementAndGet();
+        int size = message.getBytes(StandardCharsets.UTF_8).length;
+        while (true) {
+            Batch batch = batches.computeIfAbsent(analysisId, id -> new Batch());
+            synchronized (batch) {
+                if (batch.removed) {
+                    // Lost a race with a flush that retired this batch
+                    continue;
+                }
+                if (batch.closed) {
+                    // A late line of a run that already completed
+                    linesDropped.incrementAndGet();
+                    return;
+                }
+                batch.lines.add(message);
+                batch.sizes.add(size);
+                batch.bytes += size;
+                while (batch.bytes > (long) maxFrameBytes * BACKLOG_FRAMES && batch.lines.size() > 1) {
+                    batch.lines.poll();
+                    batch.bytes -= batch.sizes.poll();
+                    batch.dropped++;
+                    linesDropped.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send one frame of pending lines per analysis; called on every interval tick
+     */
+    public void flushAll() {
+        for (Map.Entry<String, Batch> entry : batches.entrySet()) {
+            Batch batch = entry.getValue();
+            synchronized (batch) {
+                if (!batch.closed) {
+                    send(entry.getKey(), batch);
+                }
+                // Idle and closed analyses must not pin their batch forever
+                if (batch.idleTicks++ > 10) {
+                    batch.removed = true;
+                    batches.remove(entry.getKey(), batch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Send everything pending for the analysis right now. Called before queue
+     * messages so they never overtake progress.
+     */
+    public void flush(String analysisId) {
+        Batch batch = batches.get(analysisId);
+        if (batch != null) {
+            synchronized (batch) {
+                while (send(analysisId, batch)) {
+                    // until nothing is pending
+                }
+            }
+        }
+    }
+
+    /**
+     * Send everything pending for the analysis and drop whatever arrives
+     * after. Called before completion and error messages, so that neither a
+     * flush tick nor a line of the finished run follows them.
+     */
+    public void close(String analysisId) {
+        while (true) {
+            Batch batch = batches.computeIfAbsent(analysisId, id -> new Batch());
+            synchronized (batch) {
+                if (batch.removed) {
+                    continue;
+                }
+                while (send(analysisId, batch)) {
+                    // until nothing is pending
+                }
+                batch.closed = true;
+                batch.idleTicks = 0;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Accept lines for an analysis again, when a new run (e.g. the next turn
+     * of a conversation) starts under a closed id
+     */
+    public void open(String analysisId) {
+        Batch batch = batches.get(analysisId);
+        if (batch != null) {
+            synchronized (batch) {
+                batch.closed = false;
+            }
+        }
+    }
+
+    public long getLinesReceived() {
+        return linesReceived.get();
+    }
+
+    public long getLinesMerged() {
+        return linesMerged.get();
+    }
+
+    public long getLinesDropped() {
+        return linesDropped.get();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    /**
+     * Send the oldest pending lines that fit into one frame (at least one)
+     *
+     * @return false if nothing was pending
+     */
+    private boolean send(String analysisId, Batch batch) {
+        if (batch.lines.isEmpty()) {
+            return false;
+        }
+
+        List<String> lines = new ArrayList<>();
+        int bytes = 0;
+        while (!batch.lines.isEmpty() && (lines.isEmpty() || bytes + batch.sizes.peek() <= maxFrameBytes)) {
+            int size = batch.sizes.poll();
+            lines.add(batch.lines.poll());
+            bytes += size;
+            batch.bytes -= size;
+        }
+
+        ProgressEvent frame = new ProgressEvent(lines.get(lines.size() - 1));
+        frame.setMessages(lines);
+        if (batch.dropped > 0) {
+            frame.setDropped(batch.dropped);
+        }
+
+        linesMerged.addAndGet(lines.size() - 1);
+        framesSent.incrementAndGet();
+        batch.dropped = 0;
+        batch.idleTicks = 0;
+
+        frameSender.accept(analysisId, frame);
+        return true;
+    }
+
+    private static final class Batch {
+        final Queue<String> lines = new ArrayDeque<>();
+        // UTF-8 size of each pending line
+        final Queue<Integer> sizes = new ArrayDeque<>();
+        long bytes;
+        int dropped;
+        int idleTicks;
+        boolean removed;
+        boolean closed;
+    }
+}
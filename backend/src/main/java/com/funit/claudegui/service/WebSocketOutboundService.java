@@ -1,16 +1,39 @@
 package com.funit.claudegui.service;
 
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.model.event.AnalysisEvent;
+import com.funit.claudegui.model.event.BatchEvent;
+import com.funit.claudegui.model.event.BatchItemEvent;
+import com.funit.claudegui.model.event.CompleteEvent;
+import com.funit.claudegui.model.event.DeltaEvent;
+import com.funit.claudegui.model.event.ErrorEvent;
+import com.funit.claudegui.model.event.ProgressEvent;
+import com.funit.claudegui.model.event.StatusEvent;
+import com.funit.claudegui.service.execution.AnalysisCoalescer;
+import com.funit.claudegui.service.metrics.ClaudeMetrics;
+import com.funit.claudegui.service.process.ClaudeHealth;
+import com.funit.claudegui.service.replay.AnalysisEventBuffer;
+import com.funit.claudegui.service.result.ResultStore;
+import com.funit.claudegui.service.stream.StreamDelta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Service for sending WebSocket messages to clients
+ * Service for sending WebSocket messages to clients.
+ * Messages for a coalesced flight are delivered to every attached analysis.
+ * Analysis events are serialized once per target by
+ * {@link WebSocketPayloadEncoder} and reach the broker as bytes.
  */
 @Service
 public class WebSocketOutboundService {
@@ -19,33 +42,156 @@ public class WebSocketOutboundService {
     private static final String TOPIC_CLAUDE_PROGRESS = "/topic/claude_analysis_progress/";
     private static final String TOPIC_CLAUDE_COMPLETE = "/topic/claude_analysis_complete/";
     private static final String TOPIC_CLAUDE_ERROR = "/topic/claude_analysis_error/";
+    private static final String TOPIC_CLAUDE_DELTA = "/topic/claude_analysis_delta/";
+    private static final String TOPIC_CLAUDE_BATCH = "/topic/claude_analysis_batch/";
+    private static final String TOPIC_CLAUDE_STATUS = "/topic/claude_status";
+
+    private static final String RESULT_PATH = "/api/claude/results/";
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private AnalysisCoalescer analysisCoalescer;
+
+    @Autowired
+    private ClaudeMetrics claudeMetrics;
+
+    @Autowired
+    private ResultStore resultStore;
+
+    @Autowired
+    private AnalysisEventBuffer analysisEventBuffer;
+
+    @Autowired
+    private WebSocketPayloadEncoder payloadEncoder;
+
+    // Null when coalescing is disabled
+    private ProgressAggregator progressAggregator;
+    private ScheduledExecutorService progressFlusher;
+
+    @PostConstruct
+    public void init() {
+        int flushIntervalMs = guiConfiguration.getProgressFlushIntervalMs();
+        if (flushIntervalMs <= 0) {
+            return;
+        }
+
+        progressAggregator = new ProgressAggregator(guiConfiguration.getProgressMaxFrameBytes(),
+                (analysisId, frame) -> publish(TOPIC_CLAUDE_PROGRESS, analysisId, frame));
+        progressFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-progress-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressFlusher.scheduleAtFixedRate(() -> {
+            try {
+                progressAggregator.flushAll();
+            } catch (Exception e) {
+                logger.warn("Failed to flush progress messages: {}", e.getMessage());
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (progressFlusher != null) {
+            progressFlusher.shutdownNow();
+            progressAggregator.flushAll();
+        }
+    }
+
     /**
-     * Send Claude analysis progress update
+     * Send Claude analysis progress update. Lines are batched into one frame
+     * per flush interval unless coalescing is disabled.
      */
     public void sendClaudeProgress(String analysisId, String message) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("message", message);
-        data.put("timestamp", System.currentTimeMillis());
-        messagingTemplate.convertAndSend(TOPIC_CLAUDE_PROGRESS + analysisId, data);
+        if (progressAggregator != null) {
+            progressAggregator.append(analysisId, message);
+            return;
+        }
+
+        publish(TOPIC_CLAUDE_PROGRESS, analysisId, new ProgressEvent(message));
+    }
+
+    /**
+     * Send the first progress message of a run. Progress of an id whose
+     * earlier run completed (the next turn of a conversation) is accepted
+     * again from here on.
+     */
+    public void sendClaudeStarted(String analysisId, String message) {
+        if (progressAggregator != null) {
+            progressAggregator.open(analysisId);
+        }
+        sendClaudeProgress(analysisId, message);
+    }
+
+    /**
+     * Send the position of a queued analysis on its progress topic
+     */
+    public void sendClaudeQueuePosition(String analysisId, int position) {
+        flushProgress(analysisId);
+        ProgressEvent event = new ProgressEvent("Waiting in queue (position " + position + ")");
+        event.setQueuePosition(position);
+        publish(TOPIC_CLAUDE_PROGRESS, analysisId, event);
+    }
+
+    /**
+     * Send the number of turns of a conversation waiting behind the one in
+     * progress on the conversation's progress topic
+     */
+    public void sendClaudeConversationQueue(String conversationId, int depth) {
+        flushProgress(conversationId);
+        ProgressEvent event = new ProgressEvent(depth > 0
+                ? depth + " more turn(s) of this conversation queued"
+                : "No more turns of this conversation queued");
+        event.setConversationQueueDepth(depth);
+        publish(TOPIC_CLAUDE_PROGRESS, conversationId, event);
+    }
+
+    /**
+     * Send an incremental piece of Claude output (text chunk, tool use or final result)
+     */
+    public void sendClaudeDelta(String analysisId, long seq, StreamDelta delta) {
+        DeltaEvent event = new DeltaEvent();
+        event.setSeq(seq);
+        event.setKind(delta.getKind());
+        event.setText(delta.getText());
+        if (delta.getToolName() != null) {
+            event.setToolName(delta.getToolName());
+            event.setToolInput(delta.getToolInput());
+        }
+        if (delta.isError()) {
+            event.setError(true);
+        }
+        publish(TOPIC_CLAUDE_DELTA, analysisId, event);
     }
 
     /**
-     * Send Claude analysis completion
+     * Send Claude analysis completion. A result above the inline size is
+     * stored once and the message carries its URL instead.
      */
     public void sendClaudeComplete(String analysisId, String result, Long durationMs) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("analysisId", analysisId);
-        data.put("result", result);
-        data.put("completed", true);
-        data.put("durationMs", durationMs);
-        data.put("timestamp", System.currentTimeMillis());
-        String topic = TOPIC_CLAUDE_COMPLETE + analysisId;
-        logger.info("Sending Claude completion to topic: {}", topic);
-        messagingTemplate.convertAndSend(topic, data);
+        closeProgress(analysisId);
+        long timestamp = System.currentTimeMillis();
+        ResultStore.StoredResult stored = resultStore.shouldOffload(result) ? resultStore.store(result) : null;
+        for (String target : analysisCoalescer.resolve(analysisId)) {
+            CompleteEvent event = new CompleteEvent();
+            event.setAnalysisId(target);
+            if (stored != null) {
+                event.setResultUrl(RESULT_PATH + stored.getId());
+                event.setResultBytes(stored.getBytes());
+            } else {
+                event.setResult(result);
+            }
+            event.setDurationMs(durationMs);
+            event.setTimestamp(timestamp);
+            logger.info("Sending Claude completion to topic: {}", TOPIC_CLAUDE_COMPLETE + target);
+            send(TOPIC_CLAUDE_COMPLETE, target, event, analysisId);
+        }
         logger.info("Claude completion sent successfully");
     }
 
@@ -53,10 +199,123 @@ public class WebSocketOutboundService {
      * Send Claude analysis error
      */
     public void sendClaudeError(String analysisId, String error) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("error", error);
-        data.put("failed", true);
-        data.put("timestamp", System.currentTimeMillis());
-        messagingTemplate.convertAndSend(TOPIC_CLAUDE_ERROR + analysisId, data);
+        closeProgress(analysisId);
+        publish(TOPIC_CLAUDE_ERROR, analysisId, new ErrorEvent(error));
+    }
+
+    /**
+     * Send cancellation of an analysis; delivered on the error topic so
+     * clients that do not know about cancelling still stop waiting
+     */
+    public void sendClaudeCancelled(String analysisId, String reason) {
+        closeProgress(analysisId);
+        ErrorEvent event = new ErrorEvent("Analysis cancelled (" + reason + ")");
+        event.setCancelled(true);
+        publish(TOPIC_CLAUDE_ERROR, analysisId, event);
+    }
+
+    /**
+     * Send an event of a batch (an item is retried, the batch is done) on
+     * the batch's topic
+     */
+    public void sendBatchEvent(BatchEvent event) {
+        publish(TOPIC_CLAUDE_BATCH, event.getBatchId(), event);
+    }
+
+    /**
+     * Send a finished item of a batch on the batch's topic. A result above
+     * the inline size is stored and sent by URL, like the result of a single
+     * analysis.
+     *
+     * @param result the item's result, or null if it has none
+     */
+    public void sendBatchItem(BatchItemEvent event, String result) {
+        if (result != null) {
+            // Inline when the result is small or could not be stored
+            ResultStore.StoredResult stored = resultStore.shouldOffload(result) ? resultStore.store(result) : null;
+            if (stored != null) {
+                event.setResultUrl(RESULT_PATH + stored.getId());
+                event.setResultBytes(stored.getBytes());
+            } else {
+                event.setResult(result);
+            }
+        }
+        sendBatchEvent(event);
+    }
+
+    /**
+     * Send a change in Claude CLI availability to all clients
+     */
+    public void sendClaudeStatus(ClaudeHealth health) {
+        StatusEvent event = new StatusEvent();
+        event.setClaudeAvailable(health.isAvailable());
+        event.setSimpleMode(health.isAvailable());
+        event.setMcpMode(health.isAvailable());
+        event.setVersion(health.getVersion());
+        event.setLatencyMs(health.getLatencyMs());
+        event.setCheckedAt(health.getCheckedAt());
+        event.setError(health.getError());
+        // Not kept for replay: a new client asks /status for the current state
+        messagingTemplate.send(TOPIC_CLAUDE_STATUS, payloadEncoder.toMessage(event, null));
+        claudeMetrics.countMessage(TOPIC_CLAUDE_STATUS, null);
+    }
+
+    /**
+     * Progress lines received, merged into a shared frame, and dropped for
+     * exceeding the backlog or arriving after completion, plus frames
+     * actually sent
+     */
+    public Map<String, Long> getProgressStats() {
+        Map<String, Long> stats = new HashMap<>();
+        if (progressAggregator != null) {
+            stats.put("linesReceived", progressAggregator.getLinesReceived());
+            stats.put("linesMerged", progressAggregator.getLinesMerged());
+            stats.put("linesDropped", progressAggregator.getLinesDropped());
+            stats.put("framesSent", progressAggregator.getFramesSent());
+        }
+        return stats;
+    }
+
+    /**
+     * Send to the analysis' topic, or to the topics of all analyses attached
+     * to it if the id is a coalesced flight. Every analysis keeps the event
+     * for replay under its own sequence number.
+     */
+    private void publish(String topicPrefix, String analysisId, AnalysisEvent event) {
+        for (String target : analysisCoalescer.resolve(analysisId)) {
+            send(topicPrefix, target, event, analysisId);
+        }
+    }
+
+    private void send(String topicPrefix, String target, AnalysisEvent event, String analysisId) {
+        AnalysisEvent payload = analysisEventBuffer.record(target, topicPrefix, event);
+        messagingTemplate.send(topicPrefix + target, payloadEncoder.toMessage(payload, null));
+        claudeMetrics.countMessage(topicPrefix, analysisId);
+    }
+
+    /**
+     * Flush the id's pending progress, and for a flight also that of every
+     * attached analysis (e.g. the notice that it joined the flight)
+     */
+    private void flushProgress(String analysisId) {
+        if (progressAggregator != null) {
+            progressAggregator.flush(analysisId);
+            for (String target : analysisCoalescer.resolve(analysisId)) {
+                if (!target.equals(analysisId)) {
+                    progressAggregator.flush(target);
+                }
+            }
+        }
+    }
+
+    private void closeProgress(String analysisId) {
+        if (progressAggregator != null) {
+            progressAggregator.close(analysisId);
+            for (String target : analysisCoalescer.resolve(analysisId)) {
+                if (!target.equals(analysisId)) {
+                    progressAggregator.close(target);
+                }
+            }
+        }
     }
 }
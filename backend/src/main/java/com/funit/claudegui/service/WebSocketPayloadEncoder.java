@@ -0,0 +1,122 @@
+package com.funit.claudegui.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.model.event.AnalysisEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializes analysis events to the JSON bytes of a STOMP message body.
+ *
+ * Each event class gets one ObjectWriter with its serializer resolved up
+ * front, and the message is handed to the broker already encoded, so the
+ * broker channel does no conversion. With compact payloads the property
+ * names are shortened per {@link #COMPACT_NAMES}; the frontend expands them.
+ */
+@Component
+public class WebSocketPayloadEncoder {
+
+    /**
+     * Short wire names of event properties, including those of the item
+     * summaries in a batch's aggregate; properties not listed keep their
+     * name. The frontend's websocket service has the same table.
+     */
+    public static final Map<String, String> COMPACT_NAMES = Map.ofEntries(
+            Map.entry("timestamp", "ts"),
+            Map.entry("eventSeq", "es"),
+            Map.entry("message", "m"),
+            Map.entry("messages", "ms"),
+            Map.entry("dropped", "dr"),
+            Map.entry("queuePosition", "qp"),
+            Map.entry("conversationQueueDepth", "cq"),
+            Map.entry("seq", "s"),
+            Map.entry("kind", "k"),
+            Map.entry("text", "t"),
+            Map.entry("toolName", "tn"),
+            Map.entry("toolInput", "ti"),
+            Map.entry("error", "e"),
+            Map.entry("analysisId", "a"),
+            Map.entry("result", "r"),
+            Map.entry("resultUrl", "ru"),
+            Map.entry("resultBytes", "rb"),
+            Map.entry("completed", "c"),
+            Map.entry("durationMs", "d"),
+            Map.entry("failed", "f"),
+            Map.entry("cancelled", "x"),
+            Map.entry("batchId", "b"),
+            Map.entry("type", "y"),
+            Map.entry("index", "i"),
+            Map.entry("status", "st"),
+            Map.entry("attempts", "n"),
+            Map.entry("retryInMs", "ri"),
+            Map.entry("fromCache", "fc"),
+            Map.entry("completedItems", "ci"),
+            Map.entry("totalItems", "tt"),
+            Map.entry("succeeded", "ok"),
+            Map.entry("items", "is"),
+            Map.entry("cancelReason", "cr"));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    private ObjectMapper wireMapper;
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        wireMapper = guiConfiguration.isWebSocketCompactPayloads()
+                ? objectMapper.copy().setPropertyNamingStrategy(new CompactNames())
+                : objectMapper;
+    }
+
+    /**
+     * The event as it goes over the wire
+     */
+    public byte[] encode(AnalysisEvent event) {
+        ObjectWriter writer = writers.computeIfAbsent(event.getClass(), wireMapper::writerFor);
+        try {
+            return writer.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * A broker message with the encoded event as payload
+     *
+     * @param accessor headers to send with, e.g. the session of a replay;
+     *                 null for a message to all subscribers
+     */
+    public Message<byte[]> toMessage(AnalysisEvent event, SimpMessageHeaderAccessor accessor) {
+        if (accessor == null) {
+            accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        }
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        // The messaging template still sets the destination
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(encode(event), accessor.getMessageHeaders());
+    }
+
+    private static final class CompactNames extends PropertyNamingStrategies.NamingBase {
+        @Override
+        public String translate(String propertyName) {
+            return COMPACT_NAMES.getOrDefault(propertyName, propertyName);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.funit.claudegui.service.batch;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.model.event.BatchCompleteEvent;
+import com.funit.claudegui.model.event.BatchItemEvent;
+import com.funit.claudegui.model.event.BatchRetryEvent;
+import com.funit.claudegui.service.ClaudeSimpleService;
+import com.funit.claudegui.service.WebSocketOutboundService;
+import com.funit.claudegui.service.cache.ResponseCache;
+import com.funit.claudegui.service.execution.AnalysisMode;
+import com.funit.claudegui.service.execution.AnalysisRejectedException;
+import com.funit.claudegui.service.execution.AnalysisScheduler;
+import com.funit.claudegui.service.process.ProcessCancelledException;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a list of prompts as simple-mode analyses, at most `parallelism`
+ * of them at a time, and reports them on the batch's topic: one event per
+ * finished item, one per retry, and an aggregate once every item is done.
+ *
+ * Items go through the same scheduler as single analyses, under the id
+ * `<batchId>-<index>`, so their progress is on the usual per-analysis
+ * topics. A failed item is retried with exponential backoff; it gives up
+ * its slot while waiting, so the rest of the batch keeps going. An item
+ * the scheduler turns away for a full queue is retried the same way
+ * without using up an attempt.
+ */
+@Service
+public class BatchAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchAnalysisService.class);
+
+    private static final long MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(1);
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private AnalysisScheduler analysisScheduler;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ClaudeSimpleService claudeSimpleService;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private WebSocketOutboundService webSocketService;
+
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private ScheduledExecutorService retryTimer;
+
+    @PostConstruct
+    public void start() {
+        retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-batch-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+    }
+
+    /**
+     * Start a batch; its items are reported on the batch topic as they finish
+     *
+     * @param parallelism requested items at once, null for the configured maximum
+     * @return the batch id
+     */
+    public String submit(List<String> prompts, Integer parallelism, boolean bypassCache) {
+        String batchId = UUID.randomUUID().toString();
+        Batch batch = new Batch(batchId, effectiveParallelism(parallelism), bypassCache);
+        for (int i = 0; i < prompts.size(); i++) {
+            Item item = new Item(i, batchId + "-" + i, prompts.get(i));
+            batch.items.add(item);
+            batch.pending.addLast(item);
+        }
+        batches.put(batchId, batch);
+        started.incrementAndGet();
+        logger.info("Started batch {} with {} items, {} at a time", batchId, prompts.size(), batch.parallelism);
+
+        pump(batch);
+        return batchId;
+    }
+
+    /**
+     * Items of a batch running at once: the requested number, capped by the configuration
+     */
+    public int effectiveParallelism(Integer requested) {
+        int max = Math.max(1, guiConfiguration.getBatchMaxParallelism());
+        return requested == null || requested <= 0 ? max : Math.min(requested, max);
+    }
+
+    /**
+     * Cancel a batch: items not started yet are dropped, running ones are
+     * stopped. The aggregate event follows once the running items are down.
+     *
+     * @return false if no batch with this id is in progress
+     */
+    public boolean cancel(String batchId, String reason) {
+        Batch batch = batches.get(batchId);
+        if (batch == null) {
+            return false;
+        }
+
+        List<Item> running = new ArrayList<>();
+        synchronized (batch) {
+            if (batch.cancelled) {
+                return true;
+            }
+            batch.cancelled = true;
+            batch.cancelReason = reason;
+            for (Item item : batch.pending) {
+                item.status = "cancelled";
+                batch.done++;
+            }
+            batch.pending.clear();
+            for (Item item : batch.items) {
+                if (item.status.equals("running")) {
+                    running.add(item);
+                }
+            }
+        }
+        logger.info("Cancelling batch {} ({}), {} items running", batchId, reason, running.size());
+
+        for (Item item : running) {
+            // A queued item is reported by its afterFinish hook, a running one when its process is down
+            if (!analysisScheduler.cancelQueued(item.id) && analysisScheduler.isRunning(item.id)) {
+                processSupervisor.cancel(item.id, reason);
+            }
+        }
+        finishIfDone(batch);
+        return true;
+    }
+
+    public int getActiveCount() {
+        return batches.size();
+    }
+
+    public long getStarted() {
+        return started.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Start pending items while the batch has free slots
+     */
+    private void pump(Batch batch) {
+        while (true) {
+            Item item;
+            synchronized (batch) {
+                if (batch.cancelled || batch.running >= batch.parallelism || batch.pending.isEmpty()) {
+                    return;
+                }
+                item = batch.pending.pollFirst();
+                item.status = "running";
+                batch.running++;
+            }
+            startItem(batch, item);
+        }
+    }
+
+    private void startItem(Batch batch, Item item) {
+        String cacheKey = responseCache.keyFor(item.prompt);
+        String cached = batch.bypassCache ? null : responseCache.get(cacheKey);
+        if (cached != null) {
+            item.fromCache = true;
+            finishItem(batch, item, "completed", cached, null);
+            return;
+        }
+
+        item.attempts++;
+        AtomicBoolean taskStarted = new AtomicBoolean();
+        try {
+            analysisScheduler.submit(AnalysisMode.SIMPLE, item.id, () -> {
+                taskStarted.set(true);
+                long startTime = System.currentTimeMillis();
+                CompletableFuture<String> run;
+                try {
+                    run = claudeSimpleService.executeAnalysis(item.prompt, item.id);
+                } catch (RuntimeException e) {
+                    run = CompletableFuture.failedFuture(e);
+                }
+                return run.handle((result, error) -> {
+                    item.durationMs += System.currentTimeMillis() - startTime;
+                    if (error == null) {
+                        responseCache.put(cacheKey, result);
+                        finishItem(batch, item, "completed", result, null);
+                    } else {
+                        onItemFailed(batch, item, unwrap(error));
+                    }
+                    return null;
+                });
+            }, () -> {
+                if (!taskStarted.get()) {
+                    // Cancelled while waiting in the scheduler's queue
+                    finishItem(batch, item, "cancelled", null, "Cancelled before it started");
+                }
+                // The scheduler slot is free now, the next item can have it
+                pump(batch);
+            });
+        } catch (AnalysisRejectedException e) {
+            item.attempts--;
+            retryLater(batch, item, e.getMessage());
+        }
+    }
+
+    private void onItemFailed(Batch batch, Item item, Throwable cause) {
+        boolean cancelled;
+        synchronized (batch) {
+            cancelled = batch.cancelled;
+        }
+        if (cause instanceof ProcessCancelledException || cancelled) {
+            finishItem(batch, item, "cancelled", null, cause.getMessage());
+        } else if (item.attempts < guiConfiguration.getBatchMaxAttempts()) {
+            retryLater(batch, item, cause.getMessage());
+        } else {
+            logger.warn("Batch {} item {} failed after {} attempts: {}", batch.id, item.index, item.attempts, cause.getMessage());
+            finishItem(batch, item, "failed", null, cause.getMessage());
+        }
+    }
+
+    /**
+     * Give up the item's slot and put it back in front of the pending items
+     * after a backoff that doubles with every attempt
+     */
+    private void retryLater(Batch batch, Item item, String error) {
+        long backoff = Math.min(MAX_BACKOFF_MS,
+                (long) guiConfiguration.getBatchRetryBackoffMs() << Math.min(20, Math.max(0, item.attempts - 1)));
+        long delayMs = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        synchronized (batch) {
+            item.status = "waiting";
+            batch.running--;
+            batch.waiting++;
+        }
+        retries.incrementAndGet();
+        logger.info("Retrying batch {} item {} in {}ms: {}", batch.id, item.index, delayMs, error);
+
+        BatchRetryEvent event = new BatchRetryEvent(batch.id);
+        event.setIndex(item.index);
+        event.setAttempts(item.attempts);
+        event.setRetryInMs(delayMs);
+        event.setError(error);
+        webSocketService.sendBatchEvent(event);
+
+        retryTimer.schedule(() -> {
+            synchronized (batch) {
+                batch.waiting--;
+                if (batch.cancelled) {
+                    item.status = "cancelled";
+                    batch.done++;
+                } else {
+                    item.status = "pending";
+                    batch.pending.addFirst(item);
+                }
+            }
+            finishIfDone(batch);
+            pump(batch);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void finishItem(Batch batch, Item item, String status, String result, String error) {
+        int done;
+        synchronized (batch) {
+            item.status = status;
+            item.error = error;
+            batch.running--;
+            done = ++batch.done;
+        }
+
+        BatchItemEvent event = new BatchItemEvent(batch.id);
+        event.setIndex(item.index);
+        event.setAnalysisId(item.id);
+        event.setStatus(status);
+        event.setAttempts(item.attempts);
+        event.setDurationMs(item.durationMs);
+        event.setFromCache(item.fromCache);
+        event.setCompletedItems(done);
+        event.setTotalItems(batch.items.size());
+        event.setError(error);
+        webSocketService.sendBatchItem(event, result);
+        finishIfDone(batch);
+    }
+
+    /**
+     * Send the aggregate and forget the batch once every item is done
+     */
+    private void finishIfDone(Batch batch) {
+        synchronized (batch) {
+            if (batch.finished || batch.done < batch.items.size() || batch.running > 0 || batch.waiting > 0) {
+                return;
+            }
+            batch.finished = true;
+        }
+        batches.remove(batch.id, batch);
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<BatchCompleteEvent.ItemSummary> items = new ArrayList<>();
+        for (Item item : batch.items) {
+            counts.merge(item.status, 1, Integer::sum);
+            items.add(new BatchCompleteEvent.ItemSummary(item.index, item.status, item.attempts,
+                    item.durationMs, item.error));
+        }
+
+        long durationMs = System.currentTimeMillis() - batch.startedAt;
+        BatchCompleteEvent event = new BatchCompleteEvent(batch.id);
+        event.setTotalItems(batch.items.size());
+        event.setSucceeded(counts.getOrDefault("completed", 0));
+        event.setFailed(counts.getOrDefault("failed", 0));
+        event.setCancelled(counts.getOrDefault("cancelled", 0));
+        event.setDurationMs(durationMs);
+        event.setItems(items);
+        event.setCancelReason(batch.cancelReason);
+        webSocketService.sendBatchEvent(event);
+        logger.info("Batch {} finished in {}ms: {}", batch.id, durationMs, counts);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Items and their progress; counters and item states are guarded by the instance
+     */
+    private static final class Batch {
+        final String id;
+        final int parallelism;
+        final boolean bypassCache;
+        final long startedAt = System.currentTimeMillis();
+        final List<Item> items = new ArrayList<>();
+        final ArrayDeque<Item> pending = new ArrayDeque<>();
+        // Items holding a slot, waiting for a retry, and finished in any way
+        int running;
+        int waiting;
+        int done;
+        boolean cancelled;
+        String cancelReason;
+        boolean finished;
+
+        Batch(String id, int parallelism, boolean bypassCache) {
+            this.id = id;
+            this.parallelism = parallelism;
+            this.bypassCache = bypassCache;
+        }
+    }
+
+    private static final class Item {
+        final int index;
+        final String id;
+        final String prompt;
+        // pending, running, waiting, completed, failed or cancelled
+        volatile String status = "pending";
+        volatile int attempts;
+        volatile long durationMs;
+        volatile boolean fromCache;
+        volatile String error;
+
+        Item(int index, String id, String prompt) {
+            this.index = index;
+            this.id = id;
+            this.prompt = prompt;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.funit.claudegui.service.cache;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Merkle hash of the project tree. Every file is hashed by content, every
+ * directory by the sorted names and hashes of its children, and the root
+ * hash identifies the state of the whole project.
+ *
+ * The tree is built once in the background and then kept current by a
+ * WatchService: a change rehashes only the touched file and the
+ * directories on its path to the root.
+ */
+@Component
+public class ProjectFingerprint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectFingerprint.class);
+
+    // Huge files are identified by size and modification time instead of content
+    private static final long CONTENT_HASH_LIMIT_BYTES = 64L * 1024 * 1024;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    // Only touched by the watcher thread
+    private final Map<Path, byte[]> hashes = new HashMap<>();
+    private final Map<Path, TreeSet<String>> children = new HashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+
+    private Path root;
+    private List<PathMatcher> ignoredNames;
+    private List<Path> ignoredPaths;
+    private WatchService watchService;
+    private Thread watcher;
+    private volatile String rootHash;
+
+    @PostConstruct
+    public void start() {
+        if (!guiConfiguration.isResponseCacheEnabled()) {
+            return;
+        }
+
+        root = guiConfiguration.getAbsoluteProjectRoot();
+        ignoredNames = new ArrayList<>();
+        for (String pattern : guiConfiguration.getFingerprintIgnore()) {
+            ignoredNames.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+        // Our own data must not invalidate the fingerprint it is keyed by.
+        // Only directories inside the project count: the spill directory
+        // defaults to the temp directory, which may contain the project.
+        ignoredPaths = new ArrayList<>();
+        for (Path own : List.of(guiConfiguration.getResponseCacheDirectory(),
+                guiConfiguration.getConversationStoreDirectory(),
+                guiConfiguration.getResultStoreDirectory(),
+                guiConfiguration.getCaptureSpillDirectory())) {
+            if (own.startsWith(root) && !own.equals(root)) {
+                ignoredPaths.add(own);
+            }
+        }
+
+        watcher = new Thread(this::run, "claude-project-fingerprint");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close watch service: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hex root hash of the project tree, or null while the initial scan is
+     * still running (or watching failed), in which case nothing may be cached
+     */
+    public String current() {
+        return rootHash;
+    }
+
+    private void run() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            rescan();
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                TreeSet<Path> dirty = new TreeSet<>(
+                        Comparator.comparingInt(Path::getNameCount).reversed().thenComparing(Comparator.naturalOrder()));
+                boolean overflow = false;
+                // Drain whatever else piled up so a burst is propagated once
+                while (key != null) {
+                    overflow |= handleEvents(key, dirty);
+                    key = watchService.poll();
+                }
+                if (overflow) {
+                    rescan();
+                } else {
+                    propagate(dirty);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            rootHash = null;
+            logger.error("Project fingerprint stopped, response cache disabled: {}", e.getMessage(), e);
+        }
+    }
+
+    private void rescan() throws IOException {
+        long start = System.currentTimeMillis();
+        rootHash = null;
+        for (WatchKey key : watchedDirs.keySet()) {
+            key.cancel();
+        }
+        watchedDirs.clear();
+        hashes.clear();
+        children.clear();
+
+        scanDirectory(root);
+        rootHash = HexFormat.of().formatHex(hashes.get(root));
+        logger.info("Fingerprinted project {} ({} entries) in {}ms",
+                root, hashes.size(), System.currentTimeMillis() - start);
+    }
+
+    private void scanDirectory(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirs.put(key, dir);
+
+        TreeSet<String> names = new TreeSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                if (isIgnored(entry)) {
+                    continue;
+                }
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    try {
+                        scanDirectory(entry);
+                    } catch (IOException e) {
+                        logger.debug("Skipping unreadable directory {}: {}", entry, e.getMessage());
+                        continue;
+                    }
+                } else {
+                    hashes.put(entry, hashFile(entry));
+                }
+                names.add(entry.getFileName().toString());
+            }
+        }
+        children.put(dir, names);
+        hashes.put(dir, hashDirectory(dir));
+    }
+
+    /**
+     * Apply the events of one directory; returns true if events were lost
+     */
+    private boolean handleEvents(WatchKey key, TreeSet<Path> dirty) {
+        Path dir = watchedDirs.get(key);
+        if (dir == null) {
+            key.cancel();
+            return false;
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return true;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if (isIgnored(child)) {
+                continue;
+            }
+
+            TreeSet<String> names = children.get(dir);
+            if (names == null) {
+                continue;
+            }
+            String name = child.getFileName().toString();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE || !Files.exists(child, LinkOption.NOFOLLOW_LINKS)) {
+                removeSubtree(child);
+                names.remove(name);
+            } else if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                if (!children.containsKey(child)) {
+                    try {
+                        scanDirectory(child);
+                    } catch (IOException e) {
+                        // Gone again before we got to it
+                        removeSubtree(child);
+                        names.remove(name);
+                        dirty.add(dir);
+                        continue;
+                    }
+                }
+                names.add(name);
+            } else {
+                hashes.put(child, hashFile(child));
+                names.add(name);
+            }
+            dirty.add(dir);
+        }
+
+        if (!key.reset()) {
+            // The directory itself went away; its parent sees the delete
+            watchedDirs.remove(key);
+        }
+        return false;
+    }
+
+    /**
+     * Rehash the changed directories and their ancestors, deepest first
+     */
+    private void propagate(TreeSet<Path> dirty) {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        while (!dirty.isEmpty()) {
+            Path dir = dirty.pollFirst();
+            if (!children.containsKey(dir)) {
+                continue;
+            }
+            hashes.put(dir, hashDirectory(dir));
+            if (!dir.equals(root)) {
+                dirty.add(dir.getParent());
+            }
+        }
+        rootHash = HexFormat.of().formatHex(hashes.get(root));
+        logger.debug("Project fingerprint changed to {}", rootHash);
+    }
+
+    private void removeSubtree(Path path) {
+        hashes.remove(path);
+        if (children.remove(path) != null) {
+            hashes.keySet().removeIf(p -> p.startsWith(path));
+            children.keySet().removeIf(p -> p.startsWith(path));
+            Iterator<Map.Entry<WatchKey, Path>> iterator = watchedDirs.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<WatchKey, Path> entry = iterator.next();
+                if (entry.getValue().startsWith(path)) {
+                    entry.getKey().cancel();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private boolean isIgnored(Path path) {
+        Path name = path.getFileName();
+        for (PathMatcher matcher : ignoredNames) {
+            if (matcher.matches(name)) {
+                return true;
+            }
+        }
+        for (Path ignored : ignoredPaths) {
+            if (path.startsWith(ignored)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] hashDirectory(Path dir) {
+        MessageDigest digest = newDigest();
+        digest.update((byte) 'd');
+        for (String name : children.get(dir)) {
+            byte[] childHash = hashes.get(dir.resolve(name));
+            if (childHash == null) {
+                continue;
+            }
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(childHash);
+        }
+        return digest.digest();
+    }
+
+    private static byte[] hashFile(Path file) {
+        MessageDigest digest = newDigest();
+        digest.update((byte) 'f');
+        try {
+            long size = Files.size(file);
+            if (size > CONTENT_HASH_LIMIT_BYTES) {
+                digest.update(Long.toString(size).getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.getLastModifiedTime(file).toString().getBytes(StandardCharsets.UTF_8));
+                return digest.digest();
+            }
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        } catch (IOException e) {
+            // Unreadable files still count, just not by content
+            digest.update((byte) '?');
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.funit.claudegui.service.cache;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of simple-mode results. Entries are keyed by the
+ * normalized prompt together with the project fingerprint, so any change
+ * to the project makes earlier results unreachable. A small LRU tier lives
+ * in memory; everything is also written to a size-capped directory that
+ * survives restarts.
+ */
+@Component
+public class ResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final String ENTRY_SUFFIX = ".result";
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private ProjectFingerprint projectFingerprint;
+
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    // Disk tier: file name -> size, oldest access first
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private boolean enabled;
+    private Path directory;
+
+    @PostConstruct
+    public void start() {
+        enabled = guiConfiguration.isResponseCacheEnabled();
+        if (!enabled) {
+            return;
+        }
+
+        directory = guiConfiguration.getResponseCacheDirectory();
+        try {
+            Files.createDirectories(directory);
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+                entries.forEach(files::add);
+            }
+            // Oldest first so the LRU order matches last use
+            files.sort((a, b) -> lastModified(a).compareTo(lastModified(b)));
+            synchronized (this) {
+                for (Path file : files) {
+                    long size = Files.size(file);
+                    disk.put(file.getFileName().toString(), size);
+                    diskBytes += size;
+                }
+                trimDisk();
+            }
+            logger.info("Response cache at {} holds {} results ({} bytes)", directory, disk.size(), diskBytes);
+        } catch (IOException e) {
+            logger.warn("Response cache directory unavailable, using memory only: {}", e.getMessage());
+            directory = null;
+        }
+    }
+
+    /**
+     * Cache key for a prompt against the current project state, or null if
+     * the project has not been fingerprinted yet (nothing is cached then)
+     */
+    public String keyFor(String prompt) {
+        if (!enabled) {
+            return null;
+        }
+        String fingerprint = projectFingerprint.current();
+        if (fingerprint == null) {
+            return null;
+        }
+        return sha256(normalize(prompt) + "\n" + fingerprint);
+    }
+
+    /**
+     * Cached result for the key, or null
+     */
+    public String get(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            String result = memory.get(key);
+            if (result != null) {
+                memoryHits.incrementAndGet();
+                return result;
+            }
+            if (directory == null || disk.get(key + ENTRY_SUFFIX) == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+
+        Path file = directory.resolve(key + ENTRY_SUFFIX);
+        try {
+            String result = Files.readString(file, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            diskHits.incrementAndGet();
+            synchronized (this) {
+                putMemory(key, result);
+            }
+            return result;
+        } catch (IOException e) {
+            synchronized (this) {
+                Long size = disk.remove(key + ENTRY_SUFFIX);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Store a result in both tiers
+     */
+    public void put(String key, String result) {
+        if (key == null || result == null) {
+            return;
+        }
+
+        synchronized (this) {
+            putMemory(key, result);
+        }
+
+        if (directory == null) {
+            return;
+        }
+        String name = key + ENTRY_SUFFIX;
+        try {
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.writeString(temp, result, StandardCharsets.UTF_8);
+            Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(directory.resolve(name));
+            synchronized (this) {
+                Long previous = disk.put(name, size);
+                diskBytes += size - (previous != null ? previous : 0);
+                trimDisk();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write cached result {}: {}", key, e.getMessage());
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int getMemoryEntries() {
+        return memory.size();
+    }
+
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * Prompts that differ only in surrounding or repeated whitespace share an entry
+     */
+    static String normalize(String prompt) {
+        return prompt.trim().replaceAll("\\s+", " ");
+    }
+
+    private void putMemory(String key, String result) {
+        String previous = memory.put(key, result);
+        memoryBytes += 2L * result.length() - (previous != null ? 2L * previous.length() : 0);
+
+        int maxEntries = guiConfiguration.getResponseCacheMemoryEntries();
+        long maxBytes = guiConfiguration.getResponseCacheMemoryMaxBytes();
+        Iterator<Map.Entry<String, String>> iterator = memory.entrySet().iterator();
+        while ((memory.size() > maxEntries || memoryBytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<String, String> eldest = iterator.next();
+            iterator.remove();
+            memoryBytes -= 2L * eldest.getValue().length();
+        }
+    }
+
+    private void trimDisk() {
+        long maxBytes = guiConfiguration.getResponseCacheDiskMaxBytes();
+        Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+        while (diskBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            diskBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                logger.debug("Failed to delete cached result {}: {}", eldest.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
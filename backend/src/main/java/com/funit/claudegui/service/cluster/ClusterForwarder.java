@@ -0,0 +1,156 @@
+package com.funit.claudegui.service.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes REST requests on to another node of the cluster: turns of a
+ * conversation owned elsewhere, and lookups of analyses or results that
+ * live on another node.
+ *
+ * Forwarded requests carry {@link #FORWARDED_HEADER}; a node receiving one
+ * handles it itself even if its view of the ring differs, so requests
+ * never bounce between nodes. Only a node that cannot be connected to is
+ * taken out of the ring; a slow or garbled answer is reported as 502 and
+ * the membership probes decide about the node.
+ */
+@Component
+public class ClusterForwarder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterForwarder.class);
+
+    public static final String FORWARDED_HEADER = "X-Claude-Forwarded-By";
+
+    // Response headers worth passing back to the client
+    private static final List<String> COPIED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_RANGE, HttpHeaders.ACCEPT_RANGES, HttpHeaders.RETRY_AFTER);
+    // Passed through unchanged, so the length is still right
+    private static final List<String> STREAMED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_RANGE, HttpHeaders.ACCEPT_RANGES);
+
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    /**
+     * Send a request to a node and read its JSON answer into the given type
+     *
+     * @param body request body serialized as JSON, or null
+     * @return the node's answer, or null if the node could not be connected
+     *         to; the node is then taken out of the ring and the caller
+     *         handles the request itself
+     */
+    public <T> ResponseEntity<T> forward(String node, String method, String path, Object body, Class<T> type) {
+        return forward(node, method, path, body, objectMapper.constructType(type));
+    }
+
+    /**
+     * Like {@link #forward(String, String, String, Object, Class)}, for a
+     * generic answer type such as a map
+     */
+    public <T> ResponseEntity<T> forward(String node, String method, String path, Object body,
+                                         TypeReference<T> type) {
+        return forward(node, method, path, body, objectMapper.getTypeFactory().constructType(type));
+    }
+
+    private <T> ResponseEntity<T> forward(String node, String method, String path, Object body, JavaType type) {
+        try {
+            HttpRequest.BodyPublisher publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+            HttpRequest.Builder request = newRequest(node, path)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .method(method, publisher);
+
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            T entity = response.body().length == 0 ? null : objectMapper.readValue(response.body(), type);
+            return toResponseEntity(response, entity, COPIED_HEADERS);
+        } catch (IOException e) {
+            return onFailure(node, path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Send a GET to a node and pass its answer on as a stream, so a large
+     * body is never held in memory. The caller must consume or close the
+     * body; a 404 answer comes without one.
+     *
+     * @param headers request headers to pass along, like Range
+     * @return the node's answer, or null if it could not be connected to
+     */
+    public ResponseEntity<InputStreamResource> forwardGet(String node, String path, Map<String, String> headers) {
+        try {
+            HttpRequest.Builder request = newRequest(node, path).GET();
+            headers.forEach(request::header);
+
+            HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                response.body().close();
+                return toResponseEntity(response, null, STREAMED_HEADERS);
+            }
+            return toResponseEntity(response, new InputStreamResource(response.body()), STREAMED_HEADERS);
+        } catch (IOException e) {
+            return onFailure(node, path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder newRequest(String node, String path) {
+        return HttpRequest.newBuilder(URI.create(node + path))
+                .timeout(Duration.ofSeconds(30))
+                .header(FORWARDED_HEADER, clusterMembership.getSelfUrl());
+    }
+
+    private static <T> ResponseEntity<T> toResponseEntity(HttpResponse<?> response, T body, List<String> names) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : names) {
+            response.headers().firstValue(name).ifPresent(value -> headers.set(name, value));
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.valueOf(response.statusCode()));
+    }
+
+    /**
+     * Null, with the node out of the ring, if it could not be connected to;
+     * otherwise 502 and the node stays until its probe fails
+     */
+    private <T> ResponseEntity<T> onFailure(String node, String path, IOException e) {
+        logger.warn("Failed to forward {} to {}: {}", path, node, e.toString());
+        if (e instanceof ConnectException || e instanceof HttpConnectTimeoutException) {
+            clusterMembership.markDown(node);
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+    }
+}
@@ -0,0 +1,202 @@
+package com.funit.claudegui.service.cluster;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.conversation.ConversationCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which backend node owns which conversation in clustered mode.
+ *
+ * The configured nodes are probed on their health endpoint; the ones
+ * answering form a consistent hash ring over conversation ids. When a node
+ * joins or leaves, the ring is rebuilt and this node unloads the
+ * conversations it no longer owns, so they are read back from the
+ * conversation store if they come back to it.
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMembership.class);
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private ConversationCache conversationCache;
+
+    private String selfUrl;
+    private Set<String> configuredNodes = Collections.emptySet();
+    private volatile Set<String> liveNodes = Collections.emptySet();
+    private volatile ConsistentHashRing ring;
+
+    private HttpClient httpClient;
+    private ScheduledExecutorService prober;
+
+    @PostConstruct
+    public void start() {
+        if (!guiConfiguration.isClusterEnabled()) {
+            return;
+        }
+
+        selfUrl = normalize(guiConfiguration.getClusterSelfUrl());
+        Set<String> nodes = new TreeSet<>();
+        nodes.add(selfUrl);
+        for (String node : guiConfiguration.getClusterNodes()) {
+            nodes.add(normalize(node));
+        }
+        configuredNodes = Collections.unmodifiableSet(nodes);
+
+        // Until the first probe, every configured node counts as live
+        updateLiveNodes(configuredNodes);
+
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-cluster-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int interval = Math.max(1, guiConfiguration.getClusterProbeIntervalSeconds());
+        prober.scheduleWithFixedDelay(this::probe, 0, interval, TimeUnit.SECONDS);
+        logger.info("Clustered mode, this node is {} of {}", selfUrl, configuredNodes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+
+    public Set<String> getLiveNodes() {
+        return liveNodes;
+    }
+
+    /**
+     * Node owning the conversation; this node when not clustered
+     */
+    public String ownerOf(String conversationId) {
+        ConsistentHashRing current = ring;
+        return current != null ? current.ownerOf(conversationId) : selfUrl;
+    }
+
+    /**
+     * Whether this node owns the conversation; always true when not clustered
+     */
+    public boolean isLocal(String conversationId) {
+        ConsistentHashRing current = ring;
+        return current == null || selfUrl.equals(current.ownerOf(conversationId));
+    }
+
+    /**
+     * Other live nodes to ask about an id this node does not know, its owner first
+     */
+    public List<String> peersFor(String id) {
+        List<String> peers = new ArrayList<>();
+        String owner = ownerOf(id);
+        if (owner != null && !owner.equals(selfUrl)) {
+            peers.add(owner);
+        }
+        for (String node : liveNodes) {
+            if (!node.equals(selfUrl) && !node.equals(owner)) {
+                peers.add(node);
+            }
+        }
+        return peers;
+    }
+
+    /**
+     * Id for a new conversation that this node owns, so its first turn can
+     * run here and the next ones are routed back
+     */
+    public String newConversationId() {
+        while (true) {
+            String id = UUID.randomUUID().toString();
+            if (isLocal(id)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * A request to the node failed; take it out of the ring until it answers a probe again
+     */
+    public void markDown(String node) {
+        Set<String> live = new LinkedHashSet<>(liveNodes);
+        if (!node.equals(selfUrl) && live.remove(node)) {
+            logger.warn("Cluster node {} unreachable", node);
+            updateLiveNodes(live);
+        }
+    }
+
+    private void probe() {
+        Set<String> live = new TreeSet<>();
+        for (String node : configuredNodes) {
+            if (node.equals(selfUrl) || isHealthy(node)) {
+                live.add(node);
+            }
+        }
+        if (!live.equals(liveNodes)) {
+            updateLiveNodes(live);
+        }
+    }
+
+    private boolean isHealthy(String node) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/actuator/health"))
+                    .timeout(Duration.ofSeconds(2))
+                    .GET()
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private synchronized void updateLiveNodes(Set<String> live) {
+        liveNodes = Collections.unmodifiableSet(new TreeSet<>(live));
+        ring = new ConsistentHashRing(liveNodes, guiConfiguration.getClusterVirtualNodes());
+        logger.info("Cluster nodes: {}", liveNodes);
+
+        // Rebalance: conversations that moved away are unloaded here
+        int released = conversationCache.release(conversationId -> !isLocal(conversationId));
+        if (released > 0) {
+            logger.info("Released {} conversations now owned by other nodes", released);
+        }
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
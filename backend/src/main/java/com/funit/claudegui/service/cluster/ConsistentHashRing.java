@@ -0,0 +1,49 @@
+package com.funit.claudegui.service.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring over node URLs. Every node is placed at a number of
+ * points on the ring and a key belongs to the node at the first point at
+ * or after the key's hash, so adding or removing a node only moves the
+ * keys between it and its neighbours. Immutable; membership changes build
+ * a new ring.
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        for (String node : nodes) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Node owning the key, null if the ring is empty
+     */
+    public String ownerOf(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    private static long hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(value.getBytes(StandardCharsets.UTF_8))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
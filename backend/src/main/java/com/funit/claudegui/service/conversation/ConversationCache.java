@@ -0,0 +1,314 @@
+package com.funit.claudegui.service.conversation;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.ClaudeMcpService.ConversationMessage;
+import com.funit.claudegui.service.execution.AnalysisMode;
+import com.funit.claudegui.service.metrics.ClaudeMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Conversations held in memory, bounded by the total size of their content
+ * rather than by entry count. Least recently used conversations are
+ * evicted when the byte budget is exceeded, and idle ones after a TTL.
+ *
+ * Evicted conversations that are in the conversation store are simply
+ * loaded again on next use. Without the store their history is gone, so
+ * the id is remembered and further turns fail with
+ * {@link ConversationExpiredException}.
+ */
+@Component
+public class ConversationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationCache.class);
+
+    // Object headers and references per message on top of its characters
+    private static final long MESSAGE_OVERHEAD_BYTES = 64;
+    private static final int MAX_TOMBSTONES = 10_000;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private ConversationStore conversationStore;
+
+    @Autowired
+    private HistoryPolicy historyPolicy;
+
+    @Autowired
+    private ClaudeMetrics claudeMetrics;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Boolean> tombstones = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_TOMBSTONES;
+                }
+            });
+
+    private long retainedBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sizeEvictions = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+
+    private long maxBytes;
+    private long idleTtlMs;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        maxBytes = guiConfiguration.getConversationCacheMaxBytes();
+        idleTtlMs = TimeUnit.MINUTES.toMillis(guiConfiguration.getConversationCacheIdleTtlMinutes());
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-conversation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepIntervalMs = Math.max(1000, Math.min(idleTtlMs / 4, TimeUnit.MINUTES.toMillis(1)));
+        sweeper.scheduleWithFixedDelay(this::evictIdle, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+
+        claudeMetrics.gauge("claude.conversations.held", "MCP conversations loaded in memory", AnalysisMode.MCP,
+                this::getSize);
+        claudeMetrics.gauge("claude.conversations.retained.bytes", "Content bytes of the loaded conversations",
+                AnalysisMode.MCP, this::getRetainedBytes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Snapshot of a conversation's messages, loading it from the store if
+     * it is not in memory; null if the conversation is unknown
+     *
+     * @throws ConversationExpiredException if it was evicted and cannot be recovered
+     */
+    public List<ConversationMessage> get(String conversationId) {
+        if (conversationId == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(conversationId);
+            if (entry != null) {
+                hits.incrementAndGet();
+                entry.lastAccess = System.currentTimeMillis();
+                return new ArrayList<>(entry.messages);
+            }
+        }
+
+        misses.incrementAndGet();
+        if (tombstones.containsKey(conversationId)) {
+            throw new ConversationExpiredException(conversationId);
+        }
+
+        List<ConversationMessage> stored = conversationStore.load(conversationId);
+        if (stored == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(conversationId);
+            if (entry == null) {
+                entry = new Entry();
+                entry.messages.addAll(stored);
+                entry.bytes = sizeOf(stored);
+                entries.put(conversationId, entry);
+                retainedBytes += entry.bytes;
+                evictToBudget(conversationId);
+            }
+            entry.lastAccess = System.currentTimeMillis();
+            return new ArrayList<>(entry.messages);
+        }
+    }
+
+    /**
+     * Append a completed turn, persisting it first when the store is enabled
+     */
+    public void append(String conversationId, List<ConversationMessage> messages) {
+        // Make sure the existing history is in memory before adding to it
+        List<ConversationMessage> existing = get(conversationId);
+        conversationStore.append(conversationId, messages);
+
+        synchronized (this) {
+            Entry entry = entries.get(conversationId);
+            if (entry == null) {
+                // Evicted between the two steps, or a new conversation
+                entry = new Entry();
+                if (existing != null) {
+                    entry.messages.addAll(existing);
+                    entry.bytes = sizeOf(existing);
+                    retainedBytes += entry.bytes;
+                }
+                entries.put(conversationId, entry);
+            }
+            long added = sizeOf(messages);
+            entry.messages.addAll(messages);
+            entry.bytes += added;
+            entry.lastAccess = System.currentTimeMillis();
+            retainedBytes += added;
+            evictToBudget(conversationId);
+        }
+    }
+
+    /**
+     * Whether the conversation was evicted without a durable copy
+     */
+    public boolean isExpired(String conversationId) {
+        return conversationId != null && tombstones.containsKey(conversationId);
+    }
+
+    /**
+     * Drop a conversation from memory and from the store
+     */
+    public void remove(String conversationId) {
+        synchronized (this) {
+            Entry entry = entries.remove(conversationId);
+            if (entry != null) {
+                retainedBytes -= entry.bytes;
+            }
+        }
+        tombstones.remove(conversationId);
+        conversationStore.delete(conversationId);
+        historyPolicy.clear(conversationId);
+        sessionRegistry.remove(conversationId);
+    }
+
+    /**
+     * Unload matching conversations from memory without deleting them, when
+     * another node of the cluster has become their owner
+     *
+     * @return the number of conversations released
+     */
+    public int release(Predicate<String> matching) {
+        List<String> released = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> entry = iterator.next();
+                if (matching.test(entry.getKey())) {
+                    iterator.remove();
+                    retainedBytes -= entry.getValue().bytes;
+                    released.add(entry.getKey());
+                }
+            }
+        }
+        released.forEach(historyPolicy::clear);
+        // A CLI session is local to this node and misses the turns run elsewhere
+        sessionRegistry.release(matching);
+        conversationStore.release(matching);
+        return released.size();
+    }
+
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public long getSizeEvictions() {
+        return sizeEvictions.get();
+    }
+
+    public long getIdleEvictions() {
+        return idleEvictions.get();
+    }
+
+    /**
+     * Evict least recently used conversations until the byte budget holds.
+     * The conversation being worked on is kept even if it alone is over.
+     */
+    private void evictToBudget(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (retainedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            retainedBytes -= eldest.getValue().bytes;
+            sizeEvictions.incrementAndGet();
+            onEvicted(eldest.getKey(), "size");
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> entry = iterator.next();
+                if (entry.getValue().lastAccess < cutoff) {
+                    iterator.remove();
+                    retainedBytes -= entry.getValue().bytes;
+                    idleEvictions.incrementAndGet();
+                    evicted.add(entry.getKey());
+                }
+            }
+        }
+        evicted.forEach(id -> onEvicted(id, "idle"));
+    }
+
+    private void onEvicted(String conversationId, String reason) {
+        historyPolicy.clear(conversationId);
+        if (conversationStore.contains(conversationId)) {
+            logger.debug("Unloaded conversation {} ({}), it stays in the store", conversationId, reason);
+        } else {
+            tombstones.put(conversationId, Boolean.TRUE);
+            logger.info("Evicted conversation {} ({}), its history is no longer available", conversationId, reason);
+        }
+    }
+
+    private static long sizeOf(List<ConversationMessage> messages) {
+        long bytes = 0;
+        for (ConversationMessage msg : messages) {
+            bytes += MESSAGE_OVERHEAD_BYTES + 2L * (msg.content == null ? 0 : msg.content.length());
+        }
+        return bytes;
+    }
+
+    private static final class Entry {
+        final List<ConversationMessage> messages = new ArrayList<>();
+        long bytes;
+        long lastAccess = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,19 @@
+package com.funit.claudegui.service.conversation;
+
+/**
+ * Thrown when a client continues a conversation whose history was evicted
+ * and cannot be recovered; the client has to start a new conversation
+ */
+public class ConversationExpiredException extends RuntimeException {
+
+    private final String conversationId;
+
+    public ConversationExpiredException(String conversationId) {
+        super("Conversation " + conversationId + " has expired, please start a new conversation");
+        this.conversationId = conversationId;
+    }
+
+    public String getConversationId() {
+        return conversationId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.funit.claudegui.service.conversation;
+
+/**
+ * Prompt built for one MCP turn, with the numbers needed to see how its
+ * size develops over a conversation
+ */
+public class ConversationPrompt {
+
+    private final String text;
+    private final int estimatedTokens;
+    private final int verbatimMessages;
+    private final int summarizedMessages;
+
+    public ConversationPrompt(String text, int estimatedTokens, int verbatimMessages, int summarizedMessages) {
+        this.text = text;
+        this.estimatedTokens = estimatedTokens;
+        this.verbatimMessages = verbatimMessages;
+        this.summarizedMessages = summarizedMessages;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getEstimatedTokens() {
+        return estimatedTokens;
+    }
+
+    public int getVerbatimMessages() {
+        return verbatimMessages;
+    }
+
+    public int getSummarizedMessages() {
+        return summarizedMessages;
+    }
+}
@@ -0,0 +1,468 @@
+package com.funit.claudegui.service.conversation;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.ClaudeMcpService.ConversationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, file-backed conversation history.
+ *
+ * Each conversation has its own directory holding numbered segment files
+ * with the message records and an index file with one fixed-size entry
+ * (segment, offset, length) per message. Startup only reads the index
+ * files; messages are decoded when a conversation is loaded, with sealed
+ * segments read through memory-mapped I/O.
+ */
+@Component
+public class ConversationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationStore.class);
+
+    private static final String INDEX_FILE = "index";
+    private static final String ID_FILE = "id";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    // int segment + long offset + int length
+    private static final int INDEX_ENTRY_BYTES = 16;
+    // Longer encoded ids are shortened to stay well below the 255 byte
+    // file name limit of common file systems
+    private static final int MAX_DIRECTORY_NAME = 128;
+    private static final char HASHED_NAME_SEPARATOR = '~';
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    private final Map<String, ConversationLog> logs = new ConcurrentHashMap<>();
+    private Path directory;
+    private int segmentBytes;
+    private boolean fsync;
+
+    @PostConstruct
+    public void recover() {
+        if (!guiConfiguration.isConversationStoreEnabled()) {
+            logger.info("Conversation store disabled, history is kept in memory only");
+            return;
+        }
+
+        directory = guiConfiguration.getConversationStoreDirectory();
+        segmentBytes = guiConfiguration.getConversationSegmentBytes();
+        fsync = guiConfiguration.isConversationStoreFsync();
+
+        long start = System.currentTimeMillis();
+        long messages = 0;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path dir : dirs) {
+                    try {
+                        ConversationLog log = ConversationLog.recover(dir);
+                        logs.put(readId(dir), log);
+                        messages += log.size();
+                    } catch (IOException | IllegalArgumentException e) {
+                        logger.warn("Skipping unreadable conversation directory {}: {}", dir, e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to open conversation store at {}: {}", directory, e.getMessage());
+            directory = null;
+            return;
+        }
+
+        logger.info("Recovered {} conversations ({} messages) from {} in {}ms",
+                logs.size(), messages, directory, System.currentTimeMillis() - start);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public boolean contains(String conversationId) {
+        return isEnabled() && logFor(conversationId, false) != null;
+    }
+
+    public int getConversationCount() {
+        return logs.size();
+    }
+
+    /**
+     * Append messages to a conversation, creating it on first use
+     */
+    public void append(String conversationId, List<ConversationMessage> messages) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            // A log deleted since it was looked up is out of the map by now,
+            // so the next lookup starts a fresh one
+            while (!logFor(conversationId, true).append(messages, segmentBytes, fsync)) {
+                logger.debug("Conversation {} was deleted during append, starting it anew", conversationId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist conversation " + conversationId, e);
+        }
+    }
+
+    /**
+     * Read all messages of a conversation, or null if it is not stored
+     */
+    public List<ConversationMessage> load(String conversationId) {
+        ConversationLog log = isEnabled() ? logFor(conversationId, false) : null;
+        if (log == null) {
+            return null;
+        }
+        try {
+            return log.readAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read conversation " + conversationId, e);
+        }
+    }
+
+    /**
+     * Remove a conversation and its files. The files are deleted while the
+     * map entry of the id is locked, so no lookup can recover or recreate the
+     * conversation from half-deleted files, and an append that already held
+     * the old log sees it deleted and retries on a new one.
+     */
+    public void delete(String conversationId) {
+        if (!isEnabled()) {
+            return;
+        }
+        logs.compute(conversationId, (id, log) -> {
+            if (log == null) {
+                Path dir = directory.resolve(encodeId(id));
+                if (!Files.isDirectory(dir)) {
+                    return null;
+                }
+                log = new ConversationLog(dir, id);
+            }
+            log.delete();
+            return null;
+        });
+    }
+
+    /**
+     * Forget the in-memory index of matching conversations, leaving their
+     * files in place for whichever node reads them next
+     *
+     * @return the number of conversations released
+     */
+    public int release(Predicate<String> matching) {
+        int released = 0;
+        for (String conversationId : logs.keySet()) {
+            if (matching.test(conversationId) && logs.remove(conversationId) != null) {
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Index of a conversation, recovered from its directory if another node
+     * of a cluster sharing the store directory wrote it since startup
+     */
+    private ConversationLog logFor(String conversationId, boolean create) {
+        return logs.computeIfAbsent(conversationId, id -> {
+            Path dir = directory.resolve(encodeId(id));
+            if (Files.isDirectory(dir)) {
+                try {
+                    return ConversationLog.recover(dir);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read conversation " + id, e);
+                }
+            }
+            return create ? new ConversationLog(dir, id) : null;
+        });
+    }
+
+    /**
+     * Directory names are the base64url form of the id, so any client
+     * supplied id maps to a safe file name. Names that would get too long
+     * are cut and suffixed with a SHA-256 of the id; the id itself is kept
+     * in the directory's id file.
+     */
+    private static String encodeId(String conversationId) {
+        byte[] id = conversationId.getBytes(StandardCharsets.UTF_8);
+        String name = Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+        if (name.length() <= MAX_DIRECTORY_NAME) {
+            return name;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(id);
+            String suffix = HASHED_NAME_SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+            return name.substring(0, MAX_DIRECTORY_NAME - suffix.length()) + suffix;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Id of a conversation directory, from its id file or, for directories
+     * written without one, from the name
+     */
+    private static String readId(Path dir) throws IOException {
+        Path idFile = dir.resolve(ID_FILE);
+        if (Files.exists(idFile)) {
+            return Files.readString(idFile, StandardCharsets.UTF_8);
+        }
+        return new String(Base64.getUrlDecoder().decode(dir.getFileName().toString()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Segments and offset index of one conversation; all access is
+     * serialized on the instance
+     */
+    private static final class ConversationLog {
+        final Path dir;
+        final String conversationId;
+        int[] segments = new int[16];
+        long[] offsets = new long[16];
+        int[] lengths = new int[16];
+        int count;
+        int activeSegment;
+        long activeSegmentSize;
+        boolean deleted;
+
+        ConversationLog(Path dir, String conversationId) {
+            this.dir = dir;
+            this.conversationId = conversationId;
+        }
+
+        /**
+         * Rebuild the in-memory index from the index file alone. Trailing
+         * entries pointing past the end of their segment (a write that did
+         * not complete) are cut off.
+         */
+        static ConversationLog recover(Path dir) throws IOException {
+            ConversationLog log = new ConversationLog(dir, readId(dir));
+            Path indexFile = dir.resolve(INDEX_FILE);
+            if (!Files.exists(indexFile)) {
+                return log;
+            }
+
+            try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                int entries = (int) (channel.size() / INDEX_ENTRY_BYTES);
+                ByteBuffer buffer = ByteBuffer.allocate(entries * INDEX_ENTRY_BYTES);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                buffer.flip();
+                for (int i = 0; i < entries; i++) {
+                    log.add(buffer.getInt(), buffer.getLong(), buffer.getInt());
+                }
+
+                long[] segmentSizes = new long[log.count == 0 ? 0 : log.segments[log.count - 1] + 1];
+                Arrays.fill(segmentSizes, -1);
+                while (log.count > 0) {
+                    int last = log.count - 1;
+                    int segment = log.segments[last];
+                    if (segmentSizes[segment] < 0) {
+                        Path segmentFile = segmentPath(dir, segment);
+                        segmentSizes[segment] = Files.exists(segmentFile) ? Files.size(segmentFile) : 0;
+                    }
+                    if (log.offsets[last] + log.lengths[last] <= segmentSizes[segment]) {
+                        break;
+                    }
+                    log.count--;
+                }
+                channel.truncate((long) log.count * INDEX_ENTRY_BYTES);
+            }
+
+            if (log.count > 0) {
+                int last = log.count - 1;
+                log.activeSegment = log.segments[last];
+                log.activeSegmentSize = log.offsets[last] + log.lengths[last];
+            }
+            return log;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        /**
+         * @return false if the log was deleted and nothing was written
+         */
+        synchronized boolean append(List<ConversationMessage> messages, int segmentBytes, boolean fsync) throws IOException {
+            if (deleted) {
+                return false;
+            }
+            if (!Files.isDirectory(dir)) {
+                Files.createDirectories(dir);
+                Files.writeString(dir.resolve(ID_FILE), conversationId, StandardCharsets.UTF_8);
+            }
+
+            if (activeSegmentSize >= segmentBytes) {
+                activeSegment++;
+                activeSegmentSize = 0;
+            }
+
+            ByteBuffer records = encode(messages);
+            ByteBuffer index = ByteBuffer.allocate(messages.size() * INDEX_ENTRY_BYTES);
+
+            // Records go at the logical end of the segment, overwriting any
+            // bytes left behind by a write whose index entry never made it
+            long position = activeSegmentSize;
+            try (FileChannel segment = FileChannel.open(segmentPath(dir, activeSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                while (records.hasRemaining()) {
+                    position += segment.write(records, position);
+                }
+                if (fsync) {
+                    segment.force(false);
+                }
+            }
+
+            long offset = activeSegmentSize;
+            records.rewind();
+            for (int i = 0; i < messages.size(); i++) {
+                int length = records.getInt(records.position()) + Integer.BYTES;
+                records.position(records.position() + length);
+                index.putInt(activeSegment).putLong(offset).putInt(length);
+                offset += length;
+            }
+            index.flip();
+
+            try (FileChannel indexChannel = FileChannel.open(dir.resolve(INDEX_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (index.hasRemaining()) {
+                    indexChannel.write(index);
+                }
+                if (fsync) {
+                    indexChannel.force(false);
+                }
+            }
+
+            index.rewind();
+            for (int i = 0; i < messages.size(); i++) {
+                add(index.getInt(), index.getLong(), index.getInt());
+            }
+            activeSegmentSize = offset;
+            return true;
+        }
+
+        synchronized List<ConversationMessage> readAll() throws IOException {
+            List<ConversationMessage> messages = new ArrayList<>(count);
+            int i = 0;
+            while (i < count) {
+                int segment = segments[i];
+                Path segmentFile = segmentPath(dir, segment);
+                try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+                    if (segment < activeSegment) {
+                        // Sealed segments never change again and are mapped as a whole
+                        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                        for (; i < count && segments[i] == segment; i++) {
+                            messages.add(decode(mapped, (int) offsets[i]));
+                        }
+                    } else {
+                        for (; i < count && segments[i] == segment; i++) {
+                            ByteBuffer record = ByteBuffer.allocate(lengths[i]);
+                            long position = offsets[i];
+                            while (record.hasRemaining() && channel.read(record, position + record.position()) >= 0) {
+                                // keep reading
+                            }
+                            record.flip();
+                            messages.add(decode(record, 0));
+                        }
+                    }
+                }
+            }
+            return messages;
+        }
+
+        synchronized void delete() {
+            deleted = true;
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            } catch (IOException e) {
+                logger.warn("Failed to delete conversation files in {}: {}", dir, e.getMessage());
+            }
+        }
+
+        private void add(int segment, long offset, int length) {
+            if (count == segments.length) {
+                int capacity = count * 2;
+                segments = Arrays.copyOf(segments, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            segments[count] = segment;
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+
+        private static Path segmentPath(Path dir, int segment) {
+            return dir.resolve(String.format("%08d%s", segment, SEGMENT_SUFFIX));
+        }
+
+        /**
+         * Record layout: int record length, short role length, role, content (UTF-8)
+         */
+        private static ByteBuffer encode(List<ConversationMessage> messages) {
+            List<byte[]> roles = new ArrayList<>(messages.size());
+            List<byte[]> contents = new ArrayList<>(messages.size());
+            int total = 0;
+            for (ConversationMessage msg : messages) {
+                byte[] role = msg.role.getBytes(StandardCharsets.UTF_8);
+                byte[] content = msg.content.getBytes(StandardCharsets.UTF_8);
+                roles.add(role);
+                contents.add(content);
+                total += Integer.BYTES + Short.BYTES + role.length + content.length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(total);
+            for (int i = 0; i < messages.size(); i++) {
+                byte[] role = roles.get(i);
+                byte[] content = contents.get(i);
+                buffer.putInt(Short.BYTES + role.length + content.length);
+                buffer.putShort((short) role.length);
+                buffer.put(role);
+                buffer.put(content);
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private static ConversationMessage decode(ByteBuffer buffer, int offset) {
+            int length = buffer.getInt(offset);
+            int roleLength = buffer.getShort(offset + Integer.BYTES);
+            int contentLength = length - Short.BYTES - roleLength;
+
+            byte[] role = new byte[roleLength];
+            byte[] content = new byte[contentLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset + Integer.BYTES + Short.BYTES);
+            view.get(role);
+            view.get(content);
+            return new ConversationMessage(new String(role, StandardCharsets.UTF_8),
+                    new String(content, StandardCharsets.UTF_8));
+        }
+    }
+}
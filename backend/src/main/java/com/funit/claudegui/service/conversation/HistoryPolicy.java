@@ -0,0 +1,151 @@
+package com.funit.claudegui.service.conversation;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.ClaudeMcpService.ConversationMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides how much conversation history goes into an MCP prompt.
+ * The most recent messages are sent verbatim up to a token budget; older
+ * ones are folded into a compact summary that is built once per message
+ * and cached per conversation, so the prompt stays roughly constant in
+ * size however long the conversation gets.
+ */
+@Component
+public class HistoryPolicy {
+
+    // Rough local estimate; the CLI does not expose a tokenizer
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private static final int SUMMARY_USER_CHARS = 200;
+    private static final int SUMMARY_ASSISTANT_CHARS = 300;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    private final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+
+    /**
+     * Build the prompt for a new user message on top of the given history
+     */
+    public ConversationPrompt buildPrompt(String conversationId, List<ConversationMessage> history, String userPrompt) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("You are a helpful AI assistant.\n\n");
+
+        int verbatim = 0;
+        int summarized = 0;
+
+        if (history != null && !history.isEmpty()) {
+            int firstVerbatim = findFirstVerbatim(history);
+
+            Summary summary = summaries.computeIfAbsent(conversationId, id -> new Summary());
+            synchronized (summary) {
+                // Never move a summarized message back into the verbatim window
+                firstVerbatim = Math.max(firstVerbatim, Math.min(summary.summarizedCount, history.size()));
+                summary.extend(history, firstVerbatim, guiConfiguration.getHistorySummaryTokenBudget());
+                summarized = summary.summarizedCount;
+
+                if (summarized > 0) {
+                    prompt.append("SUMMARY OF EARLIER CONVERSATION:\n");
+                    if (summary.omitted > 0) {
+                        prompt.append("(").append(summary.omitted).append(" earlier messages omitted)\n");
+                    }
+                    for (String line : summary.lines) {
+                        prompt.append(line).append("\n");
+                    }
+                    prompt.append("\n");
+                }
+            }
+
+            if (firstVerbatim < history.size()) {
+                prompt.append("CONVERSATION HISTORY:\n");
+                for (ConversationMessage msg : history.subList(firstVerbatim, history.size())) {
+                    if ("user".equals(msg.role)) {
+                        prompt.append("User: ").append(msg.content).append("\n");
+                    } else {
+                        prompt.append("Assistant: ").append(msg.content).append("\n");
+                    }
+                }
+                prompt.append("\n");
+                verbatim = history.size() - firstVerbatim;
+            }
+        }
+
+        prompt.append("USER REQUEST:\n");
+        prompt.append(userPrompt).append("\n");
+
+        return new ConversationPrompt(prompt.toString(), estimateTokens(prompt), verbatim, summarized);
+    }
+
+    /**
+     * Forget the cached summary of a conversation
+     */
+    public void clear(String conversationId) {
+        if (conversationId != null) {
+            summaries.remove(conversationId);
+        }
+    }
+
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Index of the oldest message that still fits into the verbatim budget,
+     * walking back from the newest. The latest exchange is always kept.
+     */
+    private int findFirstVerbatim(List<ConversationMessage> history) {
+        int budget = guiConfiguration.getHistoryTokenBudget();
+        int used = 0;
+        int first = history.size();
+        while (first > 0) {
+            int tokens = estimateTokens(history.get(first - 1).content) + 1;
+            boolean latestExchange = history.size() - first < 2;
+            if (!latestExchange && used + tokens > budget) {
+                break;
+            }
+            used += tokens;
+            first--;
+        }
+        return first;
+    }
+
+    /**
+     * Extractive summary of the messages before the verbatim window.
+     * Each message is condensed exactly once, when it leaves the window.
+     */
+    private static final class Summary {
+        final List<String> lines = new ArrayList<>();
+        int summarizedCount;
+        int omitted;
+        int tokens;
+
+        void extend(List<ConversationMessage> history, int upTo, int tokenBudget) {
+            while (summarizedCount < upTo) {
+                ConversationMessage msg = history.get(summarizedCount++);
+                String line = "user".equals(msg.role)
+                        ? "- User asked: " + condense(msg.content, SUMMARY_USER_CHARS)
+                        : "- Assistant answered: " + condense(msg.content, SUMMARY_ASSISTANT_CHARS);
+                lines.add(line);
+                tokens += estimateTokens(line) + 1;
+            }
+
+            // Oldest summary lines go first when the summary itself outgrows its budget
+            while (tokens > tokenBudget && lines.size() > 1) {
+                tokens -= estimateTokens(lines.remove(0)) + 1;
+                omitted++;
+            }
+        }
+
+        private static String condense(String content, int maxChars) {
+            String flat = content == null ? "" : content.replaceAll("\\s+", " ").trim();
+            return flat.length() <= maxChars ? flat : flat.substring(0, maxChars) + "...";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.funit.claudegui.service.conversation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Claude CLI session behind each MCP conversation, so a turn can resume the
+ * session with only the new user message instead of replaying the
+ * transcript.
+ *
+ * Sessions live in the CLI's own storage on this machine, so the mapping is
+ * kept in memory only: after a restart, or when a conversation moves to
+ * another node, the next turn replays the stored history into a new
+ * session. Also counts the turns of both paths and their prompt bytes to
+ * compare them.
+ */
+@Component
+public class SessionRegistry {
+
+    private static final int MAX_SESSIONS = 10_000;
+
+    private final Map<String, String> sessions = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_SESSIONS;
+                }
+            });
+
+    private final AtomicLong resumedTurns = new AtomicLong();
+    private final AtomicLong resumedPromptBytes = new AtomicLong();
+    private final AtomicLong replayedTurns = new AtomicLong();
+    private final AtomicLong replayedPromptBytes = new AtomicLong();
+    private final AtomicLong expiredSessions = new AtomicLong();
+
+    /**
+     * Session of the conversation, or null if its next turn has to replay the history
+     */
+    public String get(String conversationId) {
+        return conversationId == null ? null : sessions.get(conversationId);
+    }
+
+    public void put(String conversationId, String sessionId) {
+        sessions.put(conversationId, sessionId);
+    }
+
+    public void remove(String conversationId) {
+        if (conversationId != null) {
+            sessions.remove(conversationId);
+        }
+    }
+
+    /**
+     * Forget the sessions of matching conversations
+     */
+    public void release(Predicate<String> matching) {
+        synchronized (sessions) {
+            sessions.keySet().removeIf(matching);
+        }
+    }
+
+    /**
+     * The CLI no longer knows the session; the turn falls back to replay
+     */
+    public void sessionExpired(String conversationId) {
+        remove(conversationId);
+        expiredSessions.incrementAndGet();
+    }
+
+    /**
+     * A turn sent to the CLI, resuming a session or replaying the history
+     */
+    public void countTurn(boolean resumed, long promptBytes) {
+        if (resumed) {
+            resumedTurns.incrementAndGet();
+            resumedPromptBytes.addAndGet(promptBytes);
+        } else {
+            replayedTurns.incrementAndGet();
+            replayedPromptBytes.addAndGet(promptBytes);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getResumedTurns() {
+        return resumedTurns.get();
+    }
+
+    public long getReplayedTurns() {
+        return replayedTurns.get();
+    }
+
+    public long getExpiredSessions() {
+        return expiredSessions.get();
+    }
+
+    public long getAverageResumedPromptBytes() {
+        long turns = resumedTurns.get();
+        return turns == 0 ? 0 : resumedPromptBytes.get() / turns;
+    }
+
+    public long getAverageReplayedPromptBytes() {
+        long turns = replayedTurns.get();
+        return turns == 0 ? 0 : replayedPromptBytes.get() / turns;
+    }
+}
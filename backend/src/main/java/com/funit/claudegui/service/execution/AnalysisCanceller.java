@@ -0,0 +1,107 @@
+package com.funit.claudegui.service.execution;
+
+import com.funit.claudegui.service.WebSocketOutboundService;
+import com.funit.claudegui.service.batch.BatchAnalysisService;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stops analyses on request, wherever they are in the pipeline:
+ * a queued analysis leaves the wait queue, a running one has its process
+ * tree terminated (which frees its scheduler slot once the process is
+ * gone), and a request attached to a shared simple-mode flight only
+ * detaches from it unless it was the last one interested. Cancelling a
+ * conversation also drops its turns waiting behind the current one.
+ */
+@Service
+public class AnalysisCanceller {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisCanceller.class);
+
+    public enum Outcome {
+        /** The analysis was removed from the queue or its process is being stopped */
+        CANCELLED,
+        /** The analysis stopped receiving a shared run that others still wait for */
+        DETACHED,
+        /** Nothing is queued or running under the id */
+        NOT_FOUND
+    }
+
+    @Autowired
+    private AnalysisScheduler analysisScheduler;
+
+    @Autowired
+    private AnalysisCoalescer analysisCoalescer;
+
+    @Autowired
+    private ConversationMailbox conversationMailbox;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private BatchAnalysisService batchAnalysisService;
+
+    @Autowired
+    private WebSocketOutboundService webSocketService;
+
+    /**
+     * Cancel an analysis. The cancelled event reaches the analysis' topics
+     * right away when it was queued or attached to a flight, otherwise once
+     * its process has been stopped.
+     *
+     * @param reason short description for the event and the logs, e.g. "requested"
+     */
+    public Outcome cancel(String analysisId, String reason) {
+        // A batch stops all of its items; the aggregate event reports them
+        if (batchAnalysisService.cancel(analysisId, reason)) {
+            return Outcome.CANCELLED;
+        }
+
+        String target = analysisId;
+
+        String flightId = analysisCoalescer.flightOf(analysisId);
+        if (flightId != null) {
+            int remaining = analysisCoalescer.detach(analysisId);
+            webSocketService.sendClaudeCancelled(analysisId, reason);
+            if (remaining > 0) {
+                return Outcome.DETACHED;
+            }
+            // Nobody is listening to the flight any more, stop its process
+            target = flightId;
+        }
+
+        // Later turns first, so the end of the current one does not start them
+        int droppedTurns = conversationMailbox.cancelPending(target);
+        if (droppedTurns > 0) {
+            logger.info("Dropped {} queued turn(s) of conversation {} ({})", droppedTurns, target, reason);
+        }
+
+        if (analysisScheduler.cancelQueued(target)) {
+            logger.info("Cancelled queued analysis {} ({})", target, reason);
+            if (flightId != null) {
+                analysisCoalescer.release(flightId);
+            } else {
+                webSocketService.sendClaudeCancelled(analysisId, reason);
+            }
+            return Outcome.CANCELLED;
+        }
+
+        if (analysisScheduler.isRunning(target)) {
+            logger.info("Cancelling running analysis {} ({})", target, reason);
+            processSupervisor.cancel(target, reason);
+            return Outcome.CANCELLED;
+        }
+
+        if (droppedTurns > 0) {
+            webSocketService.sendClaudeCancelled(analysisId, reason);
+            return Outcome.CANCELLED;
+        }
+
+        // A flight that has just finished still counts, its subscriber was detached above
+        return flightId != null ? Outcome.CANCELLED : Outcome.NOT_FOUND;
+    }
+}
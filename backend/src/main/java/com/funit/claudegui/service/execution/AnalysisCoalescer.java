@@ -0,0 +1,193 @@
+package com.funit.claudegui.service.execution;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight registry for simple analyses. Requests with the same prompt
+ * against the same project root that arrive while one is running attach to
+ * that run (a "flight") instead of starting another Claude process.
+ *
+ * A flight has its own id under which the process runs and reports; every
+ * message sent to the flight id is fanned out to the analysis ids of all
+ * attached requests. A request that detaches stops receiving messages, and
+ * the flight is only worth cancelling once nobody is attached any more.
+ */
+@Component
+public class AnalysisCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisCoalescer.class);
+
+    private static final String FLIGHT_PREFIX = "flight-";
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    // Guarded by this
+    private final Map<String, Flight> flightsByKey = new HashMap<>();
+    private final Map<String, Flight> flightsById = new HashMap<>();
+    private final Map<String, Flight> flightsByAnalysis = new HashMap<>();
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong attached = new AtomicLong();
+
+    /**
+     * Attach an analysis to the running flight for the prompt, or start a
+     * new flight if there is none. The caller must run the analysis under
+     * the flight id when {@link Attachment#isLeader()} is true.
+     */
+    public synchronized Attachment join(String prompt, String analysisId) {
+        String key = guiConfiguration.getAbsoluteProjectRoot() + "\n" + normalize(prompt);
+
+        Flight flight = guiConfiguration.isSimpleCoalesce() ? flightsByKey.get(key) : null;
+        if (flight != null) {
+            flight.subscribers.add(analysisId);
+            flightsByAnalysis.put(analysisId, flight);
+            attached.incrementAndGet();
+            logger.info("Analysis {} attached to {} ({} subscribers)", analysisId, flight.id, flight.subscribers.size());
+            return new Attachment(flight.id, false);
+        }
+
+        flight = new Flight(FLIGHT_PREFIX + UUID.randomUUID(), key);
+        flight.subscribers.add(analysisId);
+        flightsById.put(flight.id, flight);
+        flightsByAnalysis.put(analysisId, flight);
+        if (guiConfiguration.isSimpleCoalesce()) {
+            flightsByKey.put(key, flight);
+        }
+        started.incrementAndGet();
+        return new Attachment(flight.id, true);
+    }
+
+    /**
+     * Analysis ids that messages for the given id must be delivered to:
+     * the attached analyses for a running flight's id, otherwise the id
+     * itself. Only the registry decides what is a flight, since client
+     * chosen ids such as conversation ids may look like flight ids.
+     */
+    public synchronized List<String> resolve(String id) {
+        Flight flight = flightsById.get(id);
+        return flight == null ? List.of(id) : new ArrayList<>(flight.subscribers);
+    }
+
+    /**
+     * Flight the analysis is attached to, or null
+     */
+    public synchronized String flightOf(String analysisId) {
+        Flight flight = flightsByAnalysis.get(analysisId);
+        return flight == null ? null : flight.id;
+    }
+
+    /**
+     * Stop delivering the flight's messages to the analysis. A flight left
+     * without subscribers is about to be cancelled and takes no new ones.
+     *
+     * @return number of analyses still attached to its flight, or -1 if the
+     *         analysis is not attached to any flight
+     */
+    public synchronized int detach(String analysisId) {
+        Flight flight = flightsByAnalysis.remove(analysisId);
+        if (flight == null) {
+            return -1;
+        }
+        flight.subscribers.remove(analysisId);
+        if (flight.subscribers.isEmpty()) {
+            flightsByKey.remove(flight.key, flight);
+        }
+        logger.info("Analysis {} detached from {} ({} subscribers left)", analysisId, flight.id, flight.subscribers.size());
+        return flight.subscribers.size();
+    }
+
+    /**
+     * Stop accepting new subscribers. Called right before the flight's final
+     * message, so a request arriving afterwards starts a run of its own
+     * instead of attaching to one whose result it would never see.
+     */
+    public synchronized void seal(String flightId) {
+        Flight flight = flightsById.get(flightId);
+        if (flight != null) {
+            flightsByKey.remove(flight.key, flight);
+        }
+    }
+
+    /**
+     * Forget a finished flight once its final message has been sent
+     */
+    public synchronized void release(String flightId) {
+        Flight flight = flightsById.remove(flightId);
+        if (flight == null) {
+            return;
+        }
+        flightsByKey.remove(flight.key, flight);
+        for (String analysisId : flight.subscribers) {
+            flightsByAnalysis.remove(analysisId, flight);
+        }
+    }
+
+    public synchronized int getInFlightCount() {
+        return flightsById.size();
+    }
+
+    /**
+     * Flights started, i.e. Claude processes actually requested
+     */
+    public long getStarted() {
+        return started.get();
+    }
+
+    /**
+     * Requests that attached to a running flight instead of starting one
+     */
+    public long getAttached() {
+        return attached.get();
+    }
+
+    private static String normalize(String prompt) {
+        return prompt.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Result of {@link #join}: the flight to report on, and whether the
+     * caller started it and therefore has to run it
+     */
+    public static final class Attachment {
+        private final String flightId;
+        private final boolean leader;
+
+        Attachment(String flightId, boolean leader) {
+            this.flightId = flightId;
+            this.leader = leader;
+        }
+
+        public String getFlightId() {
+            return flightId;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+    }
+
+    private static final class Flight {
+        final String id;
+        final String key;
+        final Set<String> subscribers = new LinkedHashSet<>();
+
+        Flight(String id, String key) {
+            this.id = id;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.funit.claudegui.service.execution;
+
+/**
+ * Execution mode of an analysis, each with its own scheduling limits
+ */
+public enum AnalysisMode {
+    SIMPLE("simple"),
+    MCP("mcp");
+
+    private final String tag;
+
+    AnalysisMode(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * Lower-case name as used in API responses ("simple" / "mcp")
+     */
+    public String getTag() {
+        return tag;
+    }
+}
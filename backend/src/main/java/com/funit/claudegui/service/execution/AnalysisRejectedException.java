@@ -0,0 +1,29 @@
+package com.funit.claudegui.service.execution;
+
+/**
+ * Thrown when an analysis cannot be admitted because the mode's wait queue,
+ * or the turn queue of its conversation, is full
+ */
+public class AnalysisRejectedException extends RuntimeException {
+
+    private final AnalysisMode mode;
+    private final long retryAfterSeconds;
+
+    public AnalysisRejectedException(AnalysisMode mode, long retryAfterSeconds) {
+        this(mode, retryAfterSeconds, "Too many " + mode.getTag() + " analyses in progress, retry in " + retryAfterSeconds + "s");
+    }
+
+    public AnalysisRejectedException(AnalysisMode mode, long retryAfterSeconds, String message) {
+        super(message);
+        this.mode = mode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public AnalysisMode getMode() {
+        return mode;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,352 @@
+package com.funit.claudegui.service.execution;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.WebSocketOutboundService;
+import com.funit.claudegui.service.metrics.ClaudeMetrics;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs analyses with a concurrency cap and a bounded wait queue per mode.
+ * Jobs that do not fit into the queue are rejected so the caller can answer
+ * 429 instead of spawning another process.
+ *
+ * A job only uses a worker thread to start its process; it hands back a
+ * future and keeps its slot until that future completes, so waiting for
+ * the CLI does not park a thread per analysis.
+ */
+@Service
+public class AnalysisScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisScheduler.class);
+
+    // Weight of the newest sample in the moving average of job durations
+    private static final double DURATION_SMOOTHING = 0.2;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private WebSocketOutboundService webSocketService;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ClaudeMetrics claudeMetrics;
+
+    private final Map<AnalysisMode, Lane> lanes = new EnumMap<>(AnalysisMode.class);
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void start() {
+        lanes.put(AnalysisMode.SIMPLE, new Lane(AnalysisMode.SIMPLE,
+                guiConfiguration.getSimpleMaxConcurrent(), guiConfiguration.getSimpleQueueCapacity()));
+        lanes.put(AnalysisMode.MCP, new Lane(AnalysisMode.MCP,
+                guiConfiguration.getMcpMaxConcurrent(), guiConfiguration.getMcpQueueCapacity()));
+
+        for (AnalysisMode mode : AnalysisMode.values()) {
+            claudeMetrics.gauge("claude.analyses.queued", "Analyses waiting for a slot", mode,
+                    () -> getQueuedCount(mode));
+            claudeMetrics.gauge("claude.analyses.running", "Analyses holding a slot", mode,
+                    () -> getRunningCount(mode));
+            claudeMetrics.gauge("claude.processes.live", "Claude processes running for an analysis", mode,
+                    () -> getLiveProcessCount(mode));
+        }
+        claudeMetrics.setModeResolver(this::modeOf);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "claude-analysis-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Admit an analysis. It starts right away if the mode has a free slot,
+     * otherwise it waits in the queue and its position is pushed on the
+     * progress topic until it starts.
+     *
+     * @param task starts the analysis and returns a future that completes when it is done
+     * @throws AnalysisRejectedException if the wait queue of the mode is full
+     */
+    public void submit(AnalysisMode mode, String analysisId, Supplier<CompletableFuture<?>> task) {
+        submit(mode, analysisId, task, null);
+    }
+
+    /**
+     * Admit an analysis like {@link #submit(AnalysisMode, String, Supplier)}
+     *
+     * @param afterFinish runs once the analysis has given up its slot, or
+     *                    when it is cancelled while still queued
+     */
+    public void submit(AnalysisMode mode, String analysisId, Supplier<CompletableFuture<?>> task, Runnable afterFinish) {
+        Lane lane = lanes.get(mode);
+        Job job = new Job(analysisId, task, afterFinish);
+
+        boolean startNow;
+        int position;
+        synchronized (lane) {
+            if (lane.running < lane.maxConcurrent) {
+                lane.running++;
+                lane.runningIds.add(analysisId);
+                startNow = true;
+                position = 0;
+            } else if (lane.waiting.size() < lane.queueCapacity) {
+                lane.waiting.addLast(job);
+                startNow = false;
+                position = lane.waiting.size();
+            } else {
+                long retryAfter = lane.estimateRetryAfterSeconds(guiConfiguration.getRetryAfterSeconds());
+                logger.warn("Rejected {} analysis {}: {} running, {} queued",
+                        mode.getTag(), analysisId, lane.running, lane.waiting.size());
+                throw new AnalysisRejectedException(mode, retryAfter);
+            }
+        }
+
+        if (startNow) {
+            launch(lane, job);
+        } else {
+            logger.info("Queued {} analysis {} at position {}", mode.getTag(), analysisId, position);
+            webSocketService.sendClaudeQueuePosition(analysisId, position);
+        }
+    }
+
+    /**
+     * Remove a job that is still waiting for a slot; it will never run.
+     *
+     * @return true if the analysis was queued
+     */
+    public boolean cancelQueued(String analysisId) {
+        for (Lane lane : lanes.values()) {
+            List<Job> stillWaiting;
+            Job removed = null;
+            synchronized (lane) {
+                Iterator<Job> iterator = lane.waiting.iterator();
+                while (iterator.hasNext()) {
+                    Job job = iterator.next();
+                    if (job.analysisId.equals(analysisId)) {
+                        iterator.remove();
+                        removed = job;
+                        break;
+                    }
+                }
+                if (removed == null) {
+                    continue;
+                }
+                stillWaiting = new ArrayList<>(lane.waiting);
+            }
+
+            logger.info("Removed queued {} analysis {}", lane.mode.getTag(), analysisId);
+            sendQueuePositions(stillWaiting);
+            runAfterFinish(removed);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the analysis holds a slot, i.e. its process is starting or running
+     */
+    public boolean isRunning(String analysisId) {
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                if (lane.runningIds.contains(analysisId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mode of a queued or running analysis, null if the scheduler does not
+     * know the id (any more)
+     */
+    public AnalysisMode modeOf(String analysisId) {
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                if (lane.runningIds.contains(analysisId)) {
+                    return lane.mode;
+                }
+                for (Job job : lane.waiting) {
+                    if (job.analysisId.equals(analysisId)) {
+                        return lane.mode;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Running analyses of the mode that have a live process; fewer than
+     * the running count while processes start or finish
+     */
+    public int getLiveProcessCount(AnalysisMode mode) {
+        Lane lane = lanes.get(mode);
+        int count = 0;
+        for (String analysisId : processSupervisor.getLiveAnalysisIds()) {
+            synchronized (lane) {
+                if (lane.runningIds.contains(analysisId)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number of analyses currently running in the given mode
+     */
+    public int getRunningCount(AnalysisMode mode) {
+        Lane lane = lanes.get(mode);
+        synchronized (lane) {
+            return lane.running;
+        }
+    }
+
+    /**
+     * Number of analyses waiting for a slot in the given mode
+     */
+    public int getQueuedCount(AnalysisMode mode) {
+        Lane lane = lanes.get(mode);
+        synchronized (lane) {
+            return lane.waiting.size();
+        }
+    }
+
+    private void launch(Lane lane, Job job) {
+        workers.execute(() -> {
+            long startTime = System.currentTimeMillis();
+            CompletableFuture<?> running;
+            try {
+                running = job.task.get();
+            } catch (Exception e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            running.whenComplete((result, error) -> {
+                if (error != null) {
+                    logger.error("Unhandled error in {} analysis {}: {}", lane.mode.getTag(), job.analysisId, error.getMessage(), error);
+                }
+                onFinished(lane, job, System.currentTimeMillis() - startTime);
+                runAfterFinish(job);
+            });
+        });
+    }
+
+    private void onFinished(Lane lane, Job finished, long durationMs) {
+        processSupervisor.clearPendingCancel(finished.analysisId);
+
+        Job next;
+        List<Job> stillWaiting;
+        synchronized (lane) {
+            lane.recordDuration(durationMs);
+            lane.runningIds.remove(finished.analysisId);
+            next = lane.waiting.pollFirst();
+            if (next == null) {
+                lane.running--;
+                return;
+            }
+            lane.runningIds.add(next.analysisId);
+            stillWaiting = new ArrayList<>(lane.waiting);
+        }
+
+        launch(lane, next);
+
+        // Everyone behind the started job moved up by one
+        sendQueuePositions(stillWaiting);
+    }
+
+    private void runAfterFinish(Job job) {
+        if (job.afterFinish == null) {
+            return;
+        }
+        try {
+            job.afterFinish.run();
+        } catch (Exception e) {
+            logger.error("Error after {} finished: {}", job.analysisId, e.getMessage(), e);
+        }
+    }
+
+    private void sendQueuePositions(List<Job> waiting) {
+        for (int i = 0; i < waiting.size(); i++) {
+            webSocketService.sendClaudeQueuePosition(waiting.get(i).analysisId, i + 1);
+        }
+    }
+
+    private static final class Job {
+        final String analysisId;
+        final Supplier<CompletableFuture<?>> task;
+        final Runnable afterFinish;
+
+        Job(String analysisId, Supplier<CompletableFuture<?>> task, Runnable afterFinish) {
+            this.analysisId = analysisId;
+            this.task = task;
+            this.afterFinish = afterFinish;
+        }
+    }
+
+    /**
+     * Scheduling state of one mode; guarded by its own monitor
+     */
+    private static final class Lane {
+        final AnalysisMode mode;
+        final int maxConcurrent;
+        final int queueCapacity;
+        final Deque<Job> waiting = new ArrayDeque<>();
+        final Set<String> runningIds = new HashSet<>();
+        int running;
+        double averageDurationMs;
+
+        Lane(AnalysisMode mode, int maxConcurrent, int queueCapacity) {
+            this.mode = mode;
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.queueCapacity = Math.max(0, queueCapacity);
+        }
+
+        void recordDuration(long durationMs) {
+            averageDurationMs = averageDurationMs == 0
+                    ? durationMs
+                    : averageDurationMs + DURATION_SMOOTHING * (durationMs - averageDurationMs);
+        }
+
+        /**
+         * Time until a queue slot is likely to free up, from the average job
+         * duration; falls back to the configured value before any job finished
+         */
+        long estimateRetryAfterSeconds(int fallbackSeconds) {
+            if (averageDurationMs == 0) {
+                return fallbackSeconds;
+            }
+            double seconds = averageDurationMs / maxConcurrent / 1000.0;
+            return Math.max(1, Math.min(fallbackSeconds * 10L, (long) Math.ceil(seconds)));
+        }
+    }
+}
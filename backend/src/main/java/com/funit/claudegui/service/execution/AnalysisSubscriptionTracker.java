@@ -0,0 +1,152 @@
+package com.funit.claudegui.service.execution;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks which WebSocket sessions follow which analysis, based on their
+ * subscriptions to the per-analysis topics. When a session disconnects, the
+ * analyses it followed are cancelled after a grace period unless another
+ * session (e.g. the same browser after reconnecting) subscribed to them.
+ *
+ * Analyses nobody ever subscribed to, like those of REST-only clients, are
+ * left alone.
+ */
+@Component
+public class AnalysisSubscriptionTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisSubscriptionTracker.class);
+
+    private static final Pattern ANALYSIS_TOPIC = Pattern.compile("^/topic/claude_analysis_[a-z]+/(.+)$");
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private AnalysisCanceller analysisCanceller;
+
+    // Guarded by this: session -> subscription id -> analysis, and analysis -> sessions
+    private final Map<String, Map<String, String>> subscriptionsBySession = new HashMap<>();
+    private final Map<String, Set<String>> sessionsByAnalysis = new HashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-disconnect-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSessionId() == null) {
+            return;
+        }
+        Matcher matcher = ANALYSIS_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        String analysisId = matcher.group(1);
+        synchronized (this) {
+            subscriptionsBySession.computeIfAbsent(accessor.getSessionId(), key -> new HashMap<>())
+                    .put(accessor.getSubscriptionId(), analysisId);
+            sessionsByAnalysis.computeIfAbsent(analysisId, key -> new HashSet<>()).add(accessor.getSessionId());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        synchronized (this) {
+            Map<String, String> subscriptions = subscriptionsBySession.get(accessor.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            String analysisId = subscriptions.remove(accessor.getSubscriptionId());
+            // The session may follow the analysis on another of its topics
+            if (analysisId != null && !subscriptions.containsValue(analysisId)) {
+                removeSession(analysisId, accessor.getSessionId());
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Set<String> followed;
+        synchronized (this) {
+            Map<String, String> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            followed = new HashSet<>(subscriptions.values());
+            for (String analysisId : followed) {
+                removeSession(analysisId, event.getSessionId());
+            }
+        }
+
+        if (!guiConfiguration.isCancelOnDisconnect() || followed.isEmpty()) {
+            return;
+        }
+        timer.schedule(() -> cancelAbandoned(followed),
+                Math.max(0, guiConfiguration.getDisconnectGraceSeconds()), TimeUnit.SECONDS);
+    }
+
+    private void cancelAbandoned(Set<String> analysisIds) {
+        for (String analysisId : analysisIds) {
+            synchronized (this) {
+                if (sessionsByAnalysis.containsKey(analysisId)) {
+                    continue;
+                }
+            }
+            try {
+                AnalysisCanceller.Outcome outcome = analysisCanceller.cancel(analysisId, "client disconnected");
+                if (outcome != AnalysisCanceller.Outcome.NOT_FOUND) {
+                    logger.info("Analysis {} abandoned by its client: {}", analysisId, outcome);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to cancel abandoned analysis {}: {}", analysisId, e.getMessage());
+            }
+        }
+    }
+
+    private void removeSession(String analysisId, String sessionId) {
+        Set<String> sessions = sessionsByAnalysis.get(analysisId);
+        if (sessions != null) {
+            sessions.remove(sessionId);
+            if (sessions.isEmpty()) {
+                sessionsByAnalysis.remove(analysisId);
+            }
+        }
+    }
+}
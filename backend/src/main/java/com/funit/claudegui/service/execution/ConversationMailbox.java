@@ -0,0 +1,176 @@
+package com.funit.claudegui.service.execution;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.WebSocketOutboundService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs the turns of one conversation strictly one after another, so each
+ * turn is built from the history the previous one stored. A turn arriving
+ * while another turn of its conversation is queued or running waits in
+ * that conversation's mailbox and is handed to the scheduler when the
+ * earlier turn has finished.
+ *
+ * Every conversation has its own mailbox with its own monitor; turns of
+ * different conversations never wait for each other here. Mailboxes exist
+ * only while a conversation has a turn in progress.
+ */
+@Service
+public class ConversationMailbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationMailbox.class);
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private AnalysisScheduler analysisScheduler;
+
+    @Autowired
+    private WebSocketOutboundService webSocketService;
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Run a turn of the conversation once its earlier turns are done. A turn
+     * that can start right away goes to the scheduler directly, so its
+     * rejection reaches the caller.
+     *
+     * @param task starts the turn and returns a future that completes when it is done
+     * @throws AnalysisRejectedException if the scheduler or the conversation's mailbox is full
+     */
+    public void submit(String conversationId, Supplier<CompletableFuture<?>> task) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(conversationId, key -> new Mailbox());
+            int depth;
+            synchronized (mailbox) {
+                if (mailbox.retired) {
+                    // Emptied and removed concurrently, take a fresh one
+                    continue;
+                }
+                if (!mailbox.active) {
+                    mailbox.active = true;
+                    depth = 0;
+                } else if (mailbox.pending.size() < guiConfiguration.getMcpMaxQueuedTurns()) {
+                    mailbox.pending.addLast(task);
+                    depth = mailbox.pending.size();
+                } else {
+                    throw new AnalysisRejectedException(AnalysisMode.MCP, guiConfiguration.getRetryAfterSeconds(),
+                            "Too many turns queued for this conversation, retry in " + guiConfiguration.getRetryAfterSeconds() + "s");
+                }
+            }
+
+            if (depth == 0) {
+                try {
+                    schedule(conversationId, task);
+                } catch (AnalysisRejectedException e) {
+                    finished(conversationId);
+                    throw e;
+                }
+            } else {
+                logger.info("Queued turn of conversation {} behind {} earlier turn(s)", conversationId, depth);
+                webSocketService.sendClaudeConversationQueue(conversationId, depth);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Drop the turns of the conversation that have not started; the one in
+     * progress, if any, is left alone
+     *
+     * @return the number of turns dropped
+     */
+    public int cancelPending(String conversationId) {
+        Mailbox mailbox = mailboxes.get(conversationId);
+        if (mailbox == null) {
+            return 0;
+        }
+        synchronized (mailbox) {
+            int dropped = mailbox.pending.size();
+            mailbox.pending.clear();
+            return dropped;
+        }
+    }
+
+    /**
+     * Turns of the conversation waiting behind the one in progress
+     */
+    public int getQueueDepth(String conversationId) {
+        Mailbox mailbox = mailboxes.get(conversationId);
+        if (mailbox == null) {
+            return 0;
+        }
+        synchronized (mailbox) {
+            return mailbox.pending.size();
+        }
+    }
+
+    /**
+     * Conversations with a turn in progress
+     */
+    public int getActiveCount() {
+        return mailboxes.size();
+    }
+
+    /**
+     * The turn in progress has ended or was cancelled before it started; start the next one
+     */
+    private void finished(String conversationId) {
+        Mailbox mailbox = mailboxes.get(conversationId);
+        if (mailbox == null) {
+            return;
+        }
+
+        Supplier<CompletableFuture<?>> next;
+        int depth;
+        synchronized (mailbox) {
+            next = mailbox.pending.pollFirst();
+            if (next == null) {
+                mailbox.active = false;
+                mailbox.retired = true;
+                mailboxes.remove(conversationId, mailbox);
+                return;
+            }
+            depth = mailbox.pending.size();
+        }
+
+        webSocketService.sendClaudeConversationQueue(conversationId, depth);
+        try {
+            schedule(conversationId, next);
+        } catch (AnalysisRejectedException e) {
+            // Nobody waits on a REST response for a deferred turn any more
+            logger.warn("Rejected queued turn of conversation {}: {}", conversationId, e.getMessage());
+            webSocketService.sendClaudeError(conversationId, e.getMessage());
+            finished(conversationId);
+        }
+    }
+
+    /**
+     * The next turn is started once the scheduler has released this one's
+     * slot, since both run under the conversation id
+     */
+    private void schedule(String conversationId, Supplier<CompletableFuture<?>> task) {
+        analysisScheduler.submit(AnalysisMode.MCP, conversationId, task, () -> finished(conversationId));
+    }
+
+    /**
+     * Turns of one conversation; guarded by its own monitor
+     */
+    private static final class Mailbox {
+        final ArrayDeque<Supplier<CompletableFuture<?>>> pending = new ArrayDeque<>();
+        // A turn of the conversation is queued in the scheduler or running
+        boolean active;
+        // Removed from the map; submitters must create a new mailbox
+        boolean retired;
+    }
+}
@@ -0,0 +1,180 @@
+package com.funit.claudegui.service.metrics;
+
+import com.funit.claudegui.service.execution.AnalysisMode;
+import com.funit.claudegui.service.process.ProcessCancelledException;
+import com.funit.claudegui.service.process.ProcessTimeoutException;
+import com.funit.claudegui.service.process.SupervisedProcess;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the Claude execution pipeline, exported on /actuator/prometheus.
+ * Every meter carries a "mode" tag (simple / mcp, or none for messages that
+ * do not belong to a scheduled analysis).
+ *
+ * Components register the gauges for state they own; this class only
+ * depends on the registry so that anything can record into it.
+ */
+@Component
+public class ClaudeMetrics {
+
+    public static final String MODE_NONE = "none";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Counter> messageCounters = new ConcurrentHashMap<>();
+
+    private volatile Function<String, AnalysisMode> modeResolver = analysisId -> null;
+
+    /**
+     * Time to start a CLI process (ProcessBuilder.start)
+     */
+    public void recordSpawn(AnalysisMode mode, long nanos) {
+        Timer.builder("claude.process.spawn")
+                .description("Time to start a Claude CLI process")
+                .tag("mode", mode.getTag())
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Run time, time to first output and outcome of a finished process
+     *
+     * @param exitCode exit code, null if the process failed
+     * @param error    why the process failed, null if it exited
+     */
+    public void recordProcess(AnalysisMode mode, SupervisedProcess supervised, Integer exitCode, Throwable error) {
+        String tag = mode.getTag();
+
+        long firstOutput = supervised.getFirstOutputNanos();
+        if (firstOutput >= 0) {
+            Timer.builder("claude.process.first.output")
+                    .description("Time from process start to its first stdout byte")
+                    .tag("mode", tag)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(firstOutput, TimeUnit.NANOSECONDS);
+        }
+
+        String outcome = outcome(exitCode, error);
+        long run = supervised.getRunNanos();
+        if (run >= 0) {
+            Timer.builder("claude.process.duration")
+                    .description("Total run time of a Claude CLI process")
+                    .tag("mode", tag)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(run, TimeUnit.NANOSECONDS);
+        }
+
+        if ("timeout".equals(outcome)) {
+            Counter.builder("claude.process.timeouts")
+                    .description("Claude processes killed for exceeding the timeout")
+                    .tag("mode", tag)
+                    .register(registry)
+                    .increment();
+        } else if ("exit_error".equals(outcome)) {
+            Counter.builder("claude.process.exits.nonzero")
+                    .description("Claude processes that exited with a non-zero code")
+                    .tag("mode", tag)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Time to parse the CLI's JSON output into a result
+     */
+    public void recordParse(AnalysisMode mode, long nanos) {
+        Timer.builder("claude.result.parse")
+                .description("Time to parse the Claude CLI output")
+                .tag("mode", mode.getTag())
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Prompt size and latency of one MCP turn, tagged by how the history
+     * reached the CLI: "resume" (session resumed, only the new message sent)
+     * or "replay" (transcript in the prompt)
+     */
+    public void recordTurn(String path, long promptBytes, long nanos, boolean succeeded) {
+        DistributionSummary.builder("claude.mcp.prompt.bytes")
+                .description("Bytes of prompt sent to the Claude CLI per MCP turn")
+                .baseUnit("bytes")
+                .tag("mode", AnalysisMode.MCP.getTag())
+                .tag("path", path)
+                .register(registry)
+                .record(promptBytes);
+        Timer.builder("claude.mcp.turn.duration")
+                .description("Time from starting an MCP turn to its answer")
+                .tag("mode", AnalysisMode.MCP.getTag())
+                .tag("path", path)
+                .tag("outcome", succeeded ? "ok" : "failed")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One WebSocket message sent to a topic
+     *
+     * @param topic      destination without the analysis id
+     * @param analysisId id the message was sent for, null for broadcasts
+     */
+    public void countMessage(String topic, String analysisId) {
+        String topicTag = topic.endsWith("/") ? topic.substring(0, topic.length() - 1) : topic;
+        AnalysisMode mode = analysisId != null ? modeResolver.apply(analysisId) : null;
+        String modeTag = mode != null ? mode.getTag() : MODE_NONE;
+        messageCounters.computeIfAbsent(topicTag + "|" + modeTag, key -> Counter.builder("claude.websocket.messages")
+                .description("WebSocket messages sent, per topic")
+                .tag("topic", topicTag)
+                .tag("mode", modeTag)
+                .register(registry)).increment();
+    }
+
+    /**
+     * Register a gauge sampled on every scrape
+     */
+    public void gauge(String name, String description, AnalysisMode mode, Supplier<Number> value) {
+        Gauge.builder(name, value)
+                .description(description)
+                .tag("mode", mode.getTag())
+                .register(registry);
+    }
+
+    /**
+     * Where {@link #countMessage} looks up the mode of an analysis
+     */
+    public void setModeResolver(Function<String, AnalysisMode> modeResolver) {
+        this.modeResolver = modeResolver;
+    }
+
+    private static String outcome(Integer exitCode, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ProcessTimeoutException) {
+            return "timeout";
+        }
+        if (cause instanceof ProcessCancelledException) {
+            return "cancelled";
+        }
+        if (cause != null) {
+            return "failed";
+        }
+        return exitCode != null && exitCode == 0 ? "ok" : "exit_error";
+    }
+}
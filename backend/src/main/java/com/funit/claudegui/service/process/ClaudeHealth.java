@@ -0,0 +1,58 @@
+package com.funit.claudegui.service.process;
+
+import java.util.Objects;
+
+/**
+ * Immutable result of one availability probe of the Claude CLI
+ */
+public final class ClaudeHealth {
+
+    /**
+     * State before the first probe has finished
+     */
+    public static final ClaudeHealth UNKNOWN = new ClaudeHealth(false, null, 0, 0, "Status check pending");
+
+    private final boolean available;
+    private final String version;
+    private final long latencyMs;
+    private final long checkedAt;
+    private final String error;
+
+    public ClaudeHealth(boolean available, String version, long latencyMs, long checkedAt, String error) {
+        this.available = available;
+        this.version = version;
+        this.latencyMs = latencyMs;
+        this.checkedAt = checkedAt;
+        this.error = error;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public long getCheckedAt() {
+        return checkedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Whether clients need to hear about the change from the other snapshot
+     * (latency and check time alone are not worth a push)
+     */
+    public boolean differsFrom(ClaudeHealth other) {
+        return available != other.available
+                || !Objects.equals(version, other.version)
+                || !Objects.equals(error, other.error);
+    }
+}
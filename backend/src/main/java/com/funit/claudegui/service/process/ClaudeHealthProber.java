@@ -0,0 +1,122 @@
+package com.funit.claudegui.service.process;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.WebSocketOutboundService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks on a schedule whether the Claude CLI can be started, by running
+ * `claude --version` with a timeout. Status requests are answered from the
+ * last result instead of spawning a process each, and changes are pushed
+ * to clients on the status topic.
+ */
+@Service
+public class ClaudeHealthProber {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaudeHealthProber.class);
+
+    // `claude --version` prints one short line; anything longer is not a version
+    private static final int MAX_VERSION_BYTES = 256;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    @Autowired
+    private WebSocketOutboundService webSocketService;
+
+    private volatile ClaudeHealth current = ClaudeHealth.UNKNOWN;
+    private ScheduledExecutorService prober;
+
+    @PostConstruct
+    public void start() {
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-health-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalSeconds = Math.max(1, guiConfiguration.getHealthProbeIntervalSeconds());
+        prober.scheduleWithFixedDelay(this::probe, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+
+    /**
+     * Result of the most recent probe
+     */
+    public ClaudeHealth current() {
+        return current;
+    }
+
+    private void probe() {
+        ClaudeHealth health = check();
+        ClaudeHealth previous = current;
+        current = health;
+
+        if (health.differsFrom(previous)) {
+            if (health.isAvailable()) {
+                logger.info("Claude Code available, version {} ({}ms)", health.getVersion(), health.getLatencyMs());
+            } else {
+                logger.warn("Claude Code not available: {}", health.getError());
+            }
+            webSocketService.sendClaudeStatus(health);
+        }
+    }
+
+    private ClaudeHealth check() {
+        long timeoutMs = TimeUnit.SECONDS.toMillis(Math.max(1, guiConfiguration.getHealthProbeTimeoutSeconds()));
+        long startTime = System.currentTimeMillis();
+        Process process = null;
+        try {
+            ProcessBuilder pb = new ProcessBuilder("claude", "--version");
+            pb.redirectErrorStream(true);
+            process = pb.start();
+            process.getOutputStream().close();
+
+            // The output is far below the pipe buffer, so waiting before reading cannot block the CLI
+            if (!process.waitFor(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return unavailable(startTime, "claude --version did not answer within " + timeoutMs + "ms");
+            }
+
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readNBytes(MAX_VERSION_BYTES), StandardCharsets.UTF_8).trim();
+            }
+            long latency = System.currentTimeMillis() - startTime;
+            if (process.exitValue() != 0) {
+                return unavailable(startTime, "claude --version exited with code " + process.exitValue()
+                        + (output.isEmpty() ? "" : ": " + output));
+            }
+
+            String version = output.isEmpty() ? null : output.lines().findFirst().orElse(null);
+            return new ClaudeHealth(true, version, latency, System.currentTimeMillis(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return unavailable(startTime, "Status check interrupted");
+        } catch (Exception e) {
+            return unavailable(startTime, e.getMessage());
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static ClaudeHealth unavailable(long startTime, String error) {
+        long now = System.currentTimeMillis();
+        return new ClaudeHealth(false, null, now - startTime, now, error);
+    }
+}
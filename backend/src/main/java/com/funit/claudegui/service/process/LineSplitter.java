@@ -0,0 +1,50 @@
+package com.funit.claudegui.service.process;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Output handler that cuts the byte stream into UTF-8 lines. Splitting
+ * happens on bytes, so multi-byte characters spanning two chunks survive.
+ */
+public class LineSplitter implements OutputHandler {
+
+    private final Consumer<String> lineConsumer;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    public LineSplitter(Consumer<String> lineConsumer) {
+        this.lineConsumer = lineConsumer;
+    }
+
+    @Override
+    public void onData(byte[] buffer, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] == '\n') {
+                pending.write(buffer, start, i - start);
+                emit();
+                start = i + 1;
+            }
+        }
+        pending.write(buffer, start, end - start);
+    }
+
+    @Override
+    public void onEnd() {
+        // A last line without terminating newline
+        if (pending.size() > 0) {
+            emit();
+        }
+    }
+
+    private void emit() {
+        String line = pending.toString(StandardCharsets.UTF_8);
+        pending.reset();
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        lineConsumer.accept(line);
+    }
+}
@@ -0,0 +1,190 @@
+package com.funit.claudegui.service.process;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Size-bounded capture of one output stream. Output is kept in memory up to
+ * a threshold and spilled to a temp file beyond it. Past the hard limit the
+ * capture either fails, which makes the supervisor kill the process, or
+ * silently stops recording (for diagnostics like stderr, where the head is
+ * enough).
+ *
+ * Written by a reader thread and read once the process has completed.
+ */
+public class OutputCapture implements OutputHandler, AutoCloseable {
+
+    private final long memoryBytes;
+    private final long maxBytes;
+    private final boolean failOnLimit;
+    private final Path spillDirectory;
+
+    private final Buffer memory = new Buffer();
+    private Path spillFile;
+    private FileChannel spillChannel;
+    private long size;
+    private long discarded;
+    private long firstDataAt;
+
+    private OutputCapture(long memoryBytes, long maxBytes, boolean failOnLimit, Path spillDirectory) {
+        this.memoryBytes = memoryBytes;
+        this.maxBytes = maxBytes;
+        this.failOnLimit = failOnLimit;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Capture that spills to a temp file in the directory past memoryBytes
+     * and fails the process past maxBytes
+     */
+    public static OutputCapture spilling(long memoryBytes, long maxBytes, Path spillDirectory) {
+        return new OutputCapture(memoryBytes, maxBytes, true, spillDirectory);
+    }
+
+    /**
+     * In-memory capture that keeps the first maxBytes and drops the rest
+     */
+    public static OutputCapture truncating(long maxBytes) {
+        return new OutputCapture(maxBytes, maxBytes, false, null);
+    }
+
+    @Override
+    public void onData(byte[] buffer, int offset, int length) {
+        if (firstDataAt == 0) {
+            firstDataAt = System.currentTimeMillis();
+        }
+
+        if (size + length > maxBytes) {
+            if (failOnLimit) {
+                throw new OutputLimitExceededException(maxBytes);
+            }
+            int kept = (int) (maxBytes - size);
+            discarded += length - kept;
+            length = kept;
+            if (length == 0) {
+                return;
+            }
+        }
+
+        try {
+            if (spillChannel == null && memory.size() + length > memoryBytes && spillDirectory != null) {
+                spill();
+            }
+            if (spillChannel != null) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, offset, length);
+                while (chunk.hasRemaining()) {
+                    spillChannel.write(chunk);
+                }
+            } else {
+                memory.write(buffer, offset, length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill Claude output: " + e.getMessage(), e);
+        }
+        size += length;
+    }
+
+    @Override
+    public void onEnd() {
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to spill Claude output: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Bytes recorded
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Bytes dropped by a truncating capture
+     */
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Time the first byte arrived, 0 if there was none
+     */
+    public long getFirstDataAt() {
+        return firstDataAt;
+    }
+
+    /**
+     * The recorded bytes, read from memory or from the spill file
+     */
+    public InputStream openStream() throws IOException {
+        if (spillFile != null) {
+            return Files.newInputStream(spillFile);
+        }
+        return memory.openStream();
+    }
+
+    /**
+     * The recorded output decoded as UTF-8; avoid for spilled output
+     */
+    public String asString() throws IOException {
+        if (spillFile != null) {
+            return Files.readString(spillFile, StandardCharsets.UTF_8);
+        }
+        return memory.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Delete the spill file, if any
+     */
+    @Override
+    public void close() {
+        try {
+            if (spillChannel != null) {
+                spillChannel.close();
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        } catch (IOException e) {
+            // Temp directory cleanup will get it
+        }
+    }
+
+    private void spill() throws IOException {
+        Files.createDirectories(spillDirectory);
+        spillFile = Files.createTempFile(spillDirectory, "claude-output-", ".tmp");
+        spillChannel = FileChannel.open(spillFile, StandardOpenOption.WRITE);
+        spillChannel.write(memory.asByteBuffer());
+        memory.reset();
+    }
+
+    /**
+     * Byte buffer whose contents are read in place instead of copied out
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        InputStream openStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
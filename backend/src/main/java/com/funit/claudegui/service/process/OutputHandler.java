@@ -0,0 +1,25 @@
+package com.funit.claudegui.service.process;
+
+/**
+ * Receives the output of one stream of a supervised process. Called from a
+ * shared reader thread, so implementations must not block.
+ */
+public interface OutputHandler {
+
+    /**
+     * A chunk of output; the buffer is reused after the call returns
+     */
+    void onData(byte[] buffer, int offset, int length);
+
+    /**
+     * The stream is exhausted; no further calls follow
+     */
+    default void onEnd() {
+    }
+
+    /**
+     * Handler that throws the output away
+     */
+    OutputHandler DISCARD = (buffer, offset, length) -> {
+    };
+}
@@ -0,0 +1,19 @@
+package com.funit.claudegui.service.process;
+
+/**
+ * A process wrote more output than its capture allows; the process is
+ * terminated when this is thrown from an output handler
+ */
+public class OutputLimitExceededException extends RuntimeException {
+
+    private final long limitBytes;
+
+    public OutputLimitExceededException(long limitBytes) {
+        super("Claude output exceeded the limit of " + limitBytes + " bytes");
+        this.limitBytes = limitBytes;
+    }
+
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+}
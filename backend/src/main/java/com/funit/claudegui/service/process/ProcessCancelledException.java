@@ -0,0 +1,18 @@
+package com.funit.claudegui.service.process;
+
+/**
+ * A supervised process was stopped on request before it finished
+ */
+public class ProcessCancelledException extends RuntimeException {
+
+    private final String reason;
+
+    public ProcessCancelledException(String reason) {
+        super("Claude process was cancelled (" + reason + ")");
+        this.reason = reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
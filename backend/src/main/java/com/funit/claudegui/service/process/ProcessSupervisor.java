@@ -0,0 +1,416 @@
+package com.funit.claudegui.service.process;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Shared I/O engine for Claude CLI processes. Instead of two reader threads
+ * and a thread blocked in waitFor per process, a small fixed set of reader
+ * threads pumps whatever output is available from all processes, exit is
+ * detected through {@link Process#onExit()}, and one scheduler thread
+ * enforces timeouts and kill grace periods.
+ *
+ * Reading never blocks: a reader only reads what {@link java.io.InputStream#available()}
+ * reports and backs off briefly when none of its processes had output.
+ */
+@Service
+public class ProcessSupervisor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSupervisor.class);
+
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final long MIN_IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    private final Set<SupervisedProcess> live = ConcurrentHashMap.newKeySet();
+    private final Map<String, SupervisedProcess> byAnalysis = new ConcurrentHashMap<>();
+    // Analyses cancelled while their process was still being started
+    private final Map<String, String> pendingCancels = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReader = new AtomicInteger();
+
+    private Reader[] readers;
+    private ScheduledExecutorService timer;
+    private ExecutorService completions;
+    private long killGraceMs;
+
+    @PostConstruct
+    public void start() {
+        start(guiConfiguration.getProcessReaderThreads(),
+                TimeUnit.SECONDS.toMillis(guiConfiguration.getProcessKillGraceSeconds()));
+    }
+
+    /**
+     * Start the engine outside of Spring, e.g. from a benchmark
+     */
+    public void start(int readerThreads, long killGraceMs) {
+        this.killGraceMs = killGraceMs;
+
+        readers = new Reader[Math.max(1, readerThreads)];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Reader("claude-process-io-" + (i + 1));
+            readers[i].start();
+        }
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-process-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Completion callbacks do real work (parsing, persisting, sending),
+        // which must not stall the readers
+        AtomicInteger threadCount = new AtomicInteger();
+        completions = Executors.newFixedThreadPool(readers.length, runnable -> {
+            Thread thread = new Thread(runnable, "claude-process-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (SupervisedProcess supervised : live) {
+            destroyTree(supervised.getProcess(), true);
+        }
+        for (Reader reader : readers) {
+            reader.interrupt();
+        }
+        timer.shutdownNow();
+        completions.shutdownNow();
+    }
+
+    /**
+     * Take over a started process: pump its stdout and stderr to the
+     * handlers and kill it if it outlives the timeout. The caller is still
+     * responsible for writing to and closing the process' stdin.
+     *
+     * @param timeoutMs maximum run time, 0 for none
+     */
+    public SupervisedProcess supervise(Process process, OutputHandler stdout, OutputHandler stderr, long timeoutMs) {
+        return supervise(null, process, stdout, stderr, timeoutMs);
+    }
+
+    /**
+     * Like {@link #supervise(Process, OutputHandler, OutputHandler, long)},
+     * registering the process under its analysis so it can be cancelled
+     */
+    public SupervisedProcess supervise(String analysisId, Process process, OutputHandler stdout, OutputHandler stderr,
+                                       long timeoutMs) {
+        SupervisedProcess supervised = new SupervisedProcess(analysisId, process, this, timeoutMs, stdout, stderr);
+        live.add(supervised);
+        if (analysisId != null) {
+            byAnalysis.put(analysisId, supervised);
+        }
+
+        Reader reader = readers[Math.floorMod(nextReader.getAndIncrement(), readers.length)];
+        reader.register(supervised);
+
+        if (timeoutMs > 0) {
+            supervised.timeoutTask = timer.schedule(() -> {
+                if (!supervised.exited) {
+                    logger.warn("Claude process {} exceeded {}ms, killing it", process.pid(), timeoutMs);
+                    supervised.timedOut = true;
+                    terminate(supervised);
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        // Completed by the JDK's process reaper; only flag and wake the reader here
+        process.toHandle().onExit().thenRun(() -> {
+            supervised.exitedNanos = System.nanoTime();
+            supervised.exited = true;
+            reader.wake();
+        });
+
+        String pendingReason = analysisId != null ? pendingCancels.remove(analysisId) : null;
+        if (pendingReason != null) {
+            cancel(supervised, pendingReason);
+        }
+
+        return supervised;
+    }
+
+    /**
+     * Terminate the process tree of an analysis. If the analysis has not
+     * registered its process yet, the process is stopped as soon as it does.
+     * Its completion fails with a {@link ProcessCancelledException} carrying
+     * the reason.
+     *
+     * @return true if a running process was found
+     */
+    public boolean cancel(String analysisId, String reason) {
+        SupervisedProcess supervised = byAnalysis.get(analysisId);
+        if (supervised == null) {
+            pendingCancels.put(analysisId, reason);
+            // It may have registered in the meantime
+            supervised = byAnalysis.get(analysisId);
+            if (supervised == null || pendingCancels.remove(analysisId) == null) {
+                // Not started yet, or supervise() consumed the cancellation itself
+                return supervised != null;
+            }
+        }
+        cancel(supervised, reason);
+        return true;
+    }
+
+    /**
+     * Drop a cancellation that never met its process, e.g. because the
+     * analysis failed before starting one
+     */
+    public void clearPendingCancel(String analysisId) {
+        pendingCancels.remove(analysisId);
+    }
+
+    /**
+     * Timeout for Claude processes from the configuration, in milliseconds
+     */
+    public long getDefaultTimeoutMs() {
+        return TimeUnit.SECONDS.toMillis(Math.max(0, guiConfiguration.getProcessTimeoutSeconds()));
+    }
+
+    /**
+     * Processes whose output is still being pumped
+     */
+    public int getLiveCount() {
+        return live.size();
+    }
+
+    /**
+     * Analyses that currently have a process
+     */
+    public Set<String> getLiveAnalysisIds() {
+        return Collections.unmodifiableSet(byAnalysis.keySet());
+    }
+
+    public int getReaderThreadCount() {
+        return readers.length;
+    }
+
+    private void cancel(SupervisedProcess supervised, String reason) {
+        logger.info("Cancelling Claude process {} of analysis {} ({})",
+                supervised.getPid(), supervised.getAnalysisId(), reason);
+        supervised.cancelReason = reason;
+        terminate(supervised);
+    }
+
+    void terminate(SupervisedProcess supervised) {
+        if (supervised.exited) {
+            return;
+        }
+        // Collect the tree now; once the CLI is gone its children are reparented
+        List<ProcessHandle> tree = destroyTree(supervised.getProcess(), false);
+        timer.schedule(() -> {
+            for (ProcessHandle handle : tree) {
+                if (handle.isAlive()) {
+                    logger.warn("Process {} still alive {}ms after termination, killing it", handle.pid(), killGraceMs);
+                    handle.destroyForcibly();
+                }
+            }
+        }, killGraceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static List<ProcessHandle> destroyTree(Process process, boolean forcibly) {
+        List<ProcessHandle> tree = new ArrayList<>(process.descendants().collect(Collectors.toList()));
+        tree.add(process.toHandle());
+        for (ProcessHandle handle : tree) {
+            if (forcibly) {
+                handle.destroyForcibly();
+            } else {
+                handle.destroy();
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Both streams are drained and the process has exited: settle the
+     * completion off the reader thread
+     */
+    private void finish(SupervisedProcess supervised) {
+        live.remove(supervised);
+        if (supervised.getAnalysisId() != null) {
+            byAnalysis.remove(supervised.getAnalysisId(), supervised);
+        }
+        if (supervised.timeoutTask != null) {
+            supervised.timeoutTask.cancel(false);
+        }
+
+        completions.execute(() -> {
+            // The reaper sets the exit code right after flagging the exit
+            int exitCode;
+            try {
+                exitCode = supervised.getProcess().waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                supervised.completion.completeExceptionally(e);
+                return;
+            }
+
+            if (supervised.cancelReason != null) {
+                supervised.completion.completeExceptionally(new ProcessCancelledException(supervised.cancelReason));
+            } else if (supervised.timedOut) {
+                supervised.completion.completeExceptionally(new ProcessTimeoutException(supervised.getTimeoutMs()));
+            } else if (supervised.failure != null) {
+                supervised.completion.completeExceptionally(supervised.failure);
+            } else {
+                supervised.completion.complete(exitCode);
+            }
+        });
+    }
+
+    /**
+     * Reader thread serving a share of the supervised processes
+     */
+    private final class Reader extends Thread {
+
+        private final ConcurrentLinkedQueue<SupervisedProcess> incoming = new ConcurrentLinkedQueue<>();
+        private final List<SupervisedProcess> active = new ArrayList<>();
+        private final byte[] buffer = new byte[BUFFER_BYTES];
+
+        Reader(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        void register(SupervisedProcess supervised) {
+            incoming.add(supervised);
+            wake();
+        }
+
+        void wake() {
+            LockSupport.unpark(this);
+        }
+
+        @Override
+        public void run() {
+            long idleNanos = MIN_IDLE_NANOS;
+            while (!isInterrupted()) {
+                SupervisedProcess added;
+                while ((added = incoming.poll()) != null) {
+                    active.add(added);
+                }
+
+                boolean progressed = false;
+                Iterator<SupervisedProcess> iterator = active.iterator();
+                while (iterator.hasNext()) {
+                    SupervisedProcess supervised = iterator.next();
+                    // Read the flag before the streams: after exit all output is already in the pipe
+                    boolean exited = supervised.exited;
+                    progressed |= pump(supervised, supervised.stdout, exited);
+                    progressed |= pump(supervised, supervised.stderr, exited);
+                    if (supervised.stdout.done && supervised.stderr.done) {
+                        iterator.remove();
+                        finish(supervised);
+                    }
+                }
+
+                if (active.isEmpty() && incoming.isEmpty()) {
+                    // Nothing to pump: sleep until register() unparks; a permit left by
+                    // an unpark since the check makes this return at once
+                    LockSupport.park(this);
+                    idleNanos = MIN_IDLE_NANOS;
+                } else if (progressed) {
+                    idleNanos = MIN_IDLE_NANOS;
+                } else {
+                    LockSupport.parkNanos(this, idleNanos);
+                    idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+                }
+            }
+        }
+
+        /**
+         * Move whatever is available from one stream to its handler;
+         * returns true if anything happened
+         */
+        private boolean pump(SupervisedProcess supervised, SupervisedProcess.Channel channel, boolean exited) {
+            if (channel.done) {
+                return false;
+            }
+            try {
+                int available = channel.in.available();
+                if (available > 0) {
+                    int read = channel.in.read(buffer, 0, Math.min(available, buffer.length));
+                    if (read < 0) {
+                        close(supervised, channel);
+                    } else {
+                        deliver(supervised, channel, read);
+                    }
+                    return true;
+                }
+                if (exited) {
+                    close(supervised, channel);
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                // Stream closed underneath us, e.g. by a kill
+                close(supervised, channel);
+                return true;
+            }
+        }
+
+        private void deliver(SupervisedProcess supervised, SupervisedProcess.Channel channel, int length) {
+            if (channel == supervised.stdout && supervised.firstOutputNanos == 0) {
+                supervised.firstOutputNanos = System.nanoTime();
+            }
+            try {
+                channel.handler.onData(buffer, 0, length);
+            } catch (RuntimeException e) {
+                fail(supervised, e);
+            }
+        }
+
+        private void close(SupervisedProcess supervised, SupervisedProcess.Channel channel) {
+            channel.done = true;
+            try {
+                channel.handler.onEnd();
+            } catch (RuntimeException e) {
+                fail(supervised, e);
+            }
+            try {
+                channel.in.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close process stream: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * A handler gave up on the output: stop feeding it, keep draining
+         * so the process cannot block on a full pipe, and end the process
+         */
+        private void fail(SupervisedProcess supervised, RuntimeException e) {
+            if (supervised.failure == null) {
+                supervised.failure = e;
+                logger.warn("Output handler of process {} failed: {}", supervised.getPid(), e.getMessage());
+                terminate(supervised);
+            }
+            supervised.stdout.handler = OutputHandler.DISCARD;
+            supervised.stderr.handler = OutputHandler.DISCARD;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.funit.claudegui.service.process;
+
+/**
+ * A supervised process ran longer than its timeout and was killed
+ */
+public class ProcessTimeoutException extends RuntimeException {
+
+    private final long timeoutMs;
+
+    public ProcessTimeoutException(long timeoutMs) {
+        super("Claude process timed out after " + formatTimeout(timeoutMs));
+        this.timeoutMs = timeoutMs;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    private static String formatTimeout(long timeoutMs) {
+        if (timeoutMs % 60_000 == 0) {
+            long minutes = timeoutMs / 60_000;
+            return minutes + (minutes == 1 ? " minute" : " minutes");
+        }
+        if (timeoutMs % 1000 == 0) {
+            long seconds = timeoutMs / 1000;
+            return seconds + (seconds == 1 ? " second" : " seconds");
+        }
+        return timeoutMs + "ms";
+    }
+}
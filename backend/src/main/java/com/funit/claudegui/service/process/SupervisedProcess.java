@@ -0,0 +1,119 @@
+package com.funit.claudegui.service.process;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A process under the control of {@link ProcessSupervisor}. Its output is
+ * pumped to the handlers by a shared reader thread, and {@link #completion()}
+ * completes once the process has exited and both streams are drained.
+ */
+public class SupervisedProcess {
+
+    private final String analysisId;
+    private final Process process;
+    private final ProcessSupervisor supervisor;
+    private final long timeoutMs;
+    private final long startedNanos = System.nanoTime();
+    final CompletableFuture<Integer> completion = new CompletableFuture<>();
+
+    final Channel stdout;
+    final Channel stderr;
+
+    // Set by the process reaper once the process is gone
+    volatile boolean exited;
+    volatile long exitedNanos;
+    // Written by the reader thread on the first stdout chunk
+    volatile long firstOutputNanos;
+    volatile boolean timedOut;
+    volatile String cancelReason;
+    volatile Throwable failure;
+    volatile ScheduledFuture<?> timeoutTask;
+
+    SupervisedProcess(String analysisId, Process process, ProcessSupervisor supervisor, long timeoutMs,
+                      OutputHandler stdoutHandler, OutputHandler stderrHandler) {
+        this.analysisId = analysisId;
+        this.process = process;
+        this.supervisor = supervisor;
+        this.timeoutMs = timeoutMs;
+        this.stdout = new Channel(process.getInputStream(), stdoutHandler);
+        this.stderr = new Channel(process.getErrorStream(), stderrHandler);
+    }
+
+    /**
+     * Analysis the process runs for, null if it was supervised anonymously
+     */
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public Process getProcess() {
+        return process;
+    }
+
+    public long getPid() {
+        return process.pid();
+    }
+
+    /**
+     * Exit code once the process has finished and all output was handled.
+     * Fails with {@link ProcessTimeoutException} if the process had to be
+     * killed, {@link ProcessCancelledException} if it was cancelled, or with
+     * the exception an output handler threw.
+     */
+    public CompletableFuture<Integer> completion() {
+        return completion;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    /**
+     * Nanoseconds from supervision start to the first stdout byte, -1 if
+     * there was none
+     */
+    public long getFirstOutputNanos() {
+        long first = firstOutputNanos;
+        return first == 0 ? -1 : first - startedNanos;
+    }
+
+    /**
+     * Nanoseconds from supervision start to process exit, -1 while running
+     */
+    public long getRunNanos() {
+        long exit = exitedNanos;
+        return exit == 0 ? -1 : exit - startedNanos;
+    }
+
+    /**
+     * Stop the process and everything it started: a polite request first,
+     * then a forced kill of whatever is left after the grace period
+     */
+    public void terminate() {
+        supervisor.terminate(this);
+    }
+
+    /**
+     * One output stream and where its bytes go
+     */
+    static final class Channel {
+        final InputStream in;
+        OutputHandler handler;
+        boolean done;
+
+        Channel(InputStream in, OutputHandler handler) {
+            this.in = in;
+            this.handler = handler;
+        }
+    }
+}
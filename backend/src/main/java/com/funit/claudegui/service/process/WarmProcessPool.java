@@ -0,0 +1,197 @@
+package com.funit.claudegui.service.process;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of pre-spawned, idle Claude CLI processes for simple mode.
+ * Each process has already started up and is blocked reading its prompt
+ * from stdin, so a request only has to write the prompt and close stdin.
+ * Processes are used once; a background task replaces them and discards
+ * the ones that died or stayed idle for too long.
+ */
+@Service
+public class WarmProcessPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmProcessPool.class);
+
+    private static final long REFILL_INTERVAL_SECONDS = 5;
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    private final ConcurrentLinkedDeque<WarmProcess> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    private List<String> command;
+    private int size;
+    private long maxIdleMs;
+    private ScheduledExecutorService refiller;
+
+    @PostConstruct
+    public void start() {
+        size = guiConfiguration.getWarmPoolSize();
+        maxIdleMs = TimeUnit.SECONDS.toMillis(guiConfiguration.getWarmPoolMaxIdleSeconds());
+        if (size <= 0) {
+            logger.info("Warm process pool disabled");
+            return;
+        }
+
+        refiller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-warm-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Warm process pool enabled with {} processes", size);
+    }
+
+    /**
+     * Start keeping processes warm for the given command. Called once by the
+     * owning service since the pool does not know which CLI flags are used.
+     */
+    public void warmUp(List<String> command) {
+        if (refiller == null) {
+            return;
+        }
+        this.command = List.copyOf(command);
+        refiller.scheduleWithFixedDelay(this::refill, 0, REFILL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refiller != null) {
+            refiller.shutdownNow();
+        }
+        WarmProcess warm;
+        while ((warm = idle.pollFirst()) != null) {
+            warm.process.destroy();
+        }
+    }
+
+    /**
+     * Take an idle process whose stdin is still open, or null if none is
+     * ready (the caller then spawns one itself). Either way a refill is
+     * triggered so the pool tops up in the background.
+     */
+    public Process acquire() {
+        if (refiller == null || command == null) {
+            return null;
+        }
+
+        try {
+            WarmProcess warm;
+            while ((warm = idle.pollFirst()) != null) {
+                if (isHealthy(warm)) {
+                    long hitCount = hits.incrementAndGet();
+                    logger.info("Warm pool hit after {}ms idle (hits={}, misses={})",
+                            System.currentTimeMillis() - warm.spawnedAt, hitCount, misses.get());
+                    return warm.process;
+                }
+                discard(warm);
+            }
+
+            long missCount = misses.incrementAndGet();
+            logger.info("Warm pool miss (hits={}, misses={})", hits.get(), missCount);
+            return null;
+        } finally {
+            triggerRefill();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    private void triggerRefill() {
+        if (refillScheduled.compareAndSet(false, true)) {
+            refiller.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        refillScheduled.set(false);
+
+        // Drop the ones that died or idled too long before topping up
+        Iterator<WarmProcess> iterator = idle.iterator();
+        while (iterator.hasNext()) {
+            WarmProcess warm = iterator.next();
+            if (!isHealthy(warm) && idle.remove(warm)) {
+                discard(warm);
+            }
+        }
+
+        while (idle.size() < size) {
+            try {
+                Process process = new ProcessBuilder(command).start();
+                idle.addLast(new WarmProcess(process, System.currentTimeMillis()));
+            } catch (IOException e) {
+                logger.warn("Failed to pre-spawn Claude process: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * A pre-spawned process is usable while it is alive, has not been idle
+     * too long and has not written to stdout before receiving its prompt.
+     */
+    private boolean isHealthy(WarmProcess warm) {
+        if (!warm.process.isAlive()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - warm.spawnedAt > maxIdleMs) {
+            return false;
+        }
+        try {
+            return warm.process.getInputStream().available() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void discard(WarmProcess warm) {
+        discarded.incrementAndGet();
+        warm.process.destroy();
+        logger.debug("Discarded idle Claude process (alive={})", warm.process.isAlive());
+    }
+
+    private static final class WarmProcess {
+        final Process process;
+        final long spawnedAt;
+
+        WarmProcess(Process process, long spawnedAt) {
+            this.process = process;
+            this.spawnedAt = spawnedAt;
+        }
+    }
+}
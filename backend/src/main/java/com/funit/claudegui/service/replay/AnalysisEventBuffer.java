@@ -0,0 +1,250 @@
+package com.funit.claudegui.service.replay;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.model.event.AnalysisEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recent events of every analysis, so that a client subscribing after an
+ * event was published (a cache hit or a fast failure can complete before
+ * the client has subscribed) still receives it.
+ *
+ * Each analysis keeps a ring of its last events, numbered by a sequence
+ * that is also put into the published payload as `eventSeq`. Analyses
+ * without events for the TTL are dropped, and the least recently active
+ * ones go first when all rings together exceed the memory budget.
+ */
+@Component
+public class AnalysisEventBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisEventBuffer.class);
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    // Least recently active first
+    private final LinkedHashMap<String, Ring> rings = new LinkedHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    private boolean enabled;
+    private ScheduledExecutorService expiry;
+
+    @PostConstruct
+    public void start() {
+        enabled = guiConfiguration.getReplayMaxEvents() > 0;
+        if (!enabled) {
+            logger.info("Event replay disabled");
+            return;
+        }
+
+        expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-replay-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleWithFixedDelay(this::expire, 10, 10, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+    }
+
+    /**
+     * Keep an event published to the analysis' topic; returns the event to
+     * publish, a copy carrying the event's sequence number
+     */
+    public AnalysisEvent record(String analysisId, String topicPrefix, AnalysisEvent event) {
+        if (!enabled) {
+            return event;
+        }
+
+        long bytes = event.estimateBytes();
+        AnalysisEvent payload;
+        synchronized (this) {
+            Ring ring = rings.remove(analysisId);
+            if (ring == null) {
+                ring = new Ring();
+            }
+            rings.put(analysisId, ring);
+
+            long seq = ++ring.lastSeq;
+            payload = event.withEventSeq(seq);
+            ring.events.addLast(new ReplayEvent(seq, topicPrefix, payload, bytes));
+            ring.bytes += bytes;
+            ring.lastEventAt = System.currentTimeMillis();
+            totalBytes += bytes;
+
+            while (ring.events.size() > guiConfiguration.getReplayMaxEvents()) {
+                ReplayEvent dropped = ring.events.removeFirst();
+                ring.bytes -= dropped.bytes;
+                totalBytes -= dropped.bytes;
+            }
+            trim();
+        }
+        recorded.incrementAndGet();
+        return payload;
+    }
+
+    /**
+     * Buffered events of the analysis after the given sequence number, or
+     * null if nothing is buffered for it
+     */
+    public synchronized List<ReplayEvent> since(String analysisId, long seq) {
+        Ring ring = rings.get(analysisId);
+        if (ring == null) {
+            return null;
+        }
+        List<ReplayEvent> events = new ArrayList<>();
+        for (ReplayEvent event : ring.events) {
+            if (event.getSeq() > seq) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Buffered events of the analysis on one of its topics, oldest first
+     */
+    public List<ReplayEvent> forTopic(String analysisId, String topicPrefix) {
+        List<ReplayEvent> events = new ArrayList<>();
+        synchronized (this) {
+            Ring ring = rings.get(analysisId);
+            if (ring == null) {
+                return Collections.emptyList();
+            }
+            for (ReplayEvent event : ring.events) {
+                if (event.getTopicPrefix().equals(topicPrefix)) {
+                    events.add(event);
+                }
+            }
+        }
+        replayed.addAndGet(events.size());
+        return events;
+    }
+
+    /**
+     * Forget the events of an analysis id that starts over, like a
+     * conversation id reused for its next turn. The numbering goes on, so a
+     * client still subscribed from the last turn does not take the new
+     * events for ones it has seen.
+     */
+    public synchronized void reset(String analysisId) {
+        Ring ring = rings.get(analysisId);
+        if (ring != null) {
+            totalBytes -= ring.bytes;
+            ring.events.clear();
+            ring.bytes = 0;
+        }
+    }
+
+    public synchronized int getAnalysisCount() {
+        return rings.size();
+    }
+
+    public synchronized long getBufferedBytes() {
+        return totalBytes;
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    private void expire() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(guiConfiguration.getReplayTtlSeconds());
+        synchronized (this) {
+            Iterator<Ring> iterator = rings.values().iterator();
+            while (iterator.hasNext()) {
+                Ring ring = iterator.next();
+                if (ring.lastEventAt > cutoff) {
+                    break;
+                }
+                iterator.remove();
+                totalBytes -= ring.bytes;
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drop the least recently active analyses while over the memory budget
+     */
+    private void trim() {
+        long maxBytes = guiConfiguration.getReplayMaxBytes();
+        Iterator<Ring> iterator = rings.values().iterator();
+        while (totalBytes > maxBytes && rings.size() > 1 && iterator.hasNext()) {
+            Ring ring = iterator.next();
+            iterator.remove();
+            totalBytes -= ring.bytes;
+            evicted.incrementAndGet();
+        }
+    }
+
+    private static final class Ring {
+        final ArrayDeque<ReplayEvent> events = new ArrayDeque<>();
+        long lastSeq;
+        long bytes;
+        long lastEventAt;
+    }
+
+    /**
+     * A published event: its sequence number, the topic it went to (without
+     * the analysis id) and its payload
+     */
+    public static class ReplayEvent {
+        private final long seq;
+        private final String topicPrefix;
+        private final AnalysisEvent payload;
+        private final long bytes;
+
+        ReplayEvent(long seq, String topicPrefix, AnalysisEvent payload, long bytes) {
+            this.seq = seq;
+            this.topicPrefix = topicPrefix;
+            this.payload = payload;
+            this.bytes = bytes;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public String getTopicPrefix() {
+            return topicPrefix;
+        }
+
+        public AnalysisEvent getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.funit.claudegui.service.replay;
+
+import com.funit.claudegui.service.WebSocketPayloadEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays buffered events to a session subscribing to a per-analysis topic.
+ *
+ * Runs on the inbound channel once the broker has registered the
+ * subscription: every event published after that reaches the session
+ * live, every event before it is in the buffer. An event published in
+ * between can arrive twice; clients drop duplicates by `eventSeq`.
+ */
+@Component
+public class SubscriptionReplayInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionReplayInterceptor.class);
+
+    private static final Pattern ANALYSIS_TOPIC = Pattern.compile("^(/topic/claude_analysis_[a-z]+/)(.+)$");
+
+    @Autowired
+    private AnalysisEventBuffer analysisEventBuffer;
+
+    @Autowired
+    private WebSocketPayloadEncoder payloadEncoder;
+
+    // Created by the broker configuration that this interceptor is part of
+    @Lazy
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    private SimpMessagingTemplate sessionTemplate;
+
+    @PostConstruct
+    public void init() {
+        sessionTemplate = new SimpMessagingTemplate(clientOutboundChannel);
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+        SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.wrap(message);
+        String destination = subscribe.getDestination();
+        if (destination == null || subscribe.getSessionId() == null) {
+            return;
+        }
+        Matcher matcher = ANALYSIS_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        List<AnalysisEventBuffer.ReplayEvent> events = analysisEventBuffer.forTopic(matcher.group(2), matcher.group(1));
+        for (AnalysisEventBuffer.ReplayEvent event : events) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(subscribe.getSessionId());
+            accessor.setSubscriptionId(subscribe.getSubscriptionId());
+            try {
+                sessionTemplate.send(destination, payloadEncoder.toMessage(event.getPayload(), accessor));
+            } catch (Exception e) {
+                logger.warn("Failed to replay event {} on {}: {}", event.getSeq(), destination, e.getMessage());
+                return;
+            }
+        }
+        if (!events.isEmpty()) {
+            logger.debug("Replayed {} events on {} to session {}", events.size(), destination, subscribe.getSessionId());
+        }
+    }
+}
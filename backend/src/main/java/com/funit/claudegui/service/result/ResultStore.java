@@ -0,0 +1,244 @@
+package com.funit.claudegui.service.result;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-capped directory of analysis results too large to send inline in a
+ * STOMP frame. The completion message carries the URL of the stored result
+ * instead, and clients fetch it over HTTP, where it is streamed from the
+ * file. Results expire after the retention time; the oldest go first when
+ * the directory is over its size cap.
+ */
+@Component
+public class ResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultStore.class);
+
+    private static final String RESULT_SUFFIX = ".result";
+
+    @Autowired
+    private GuiConfiguration guiConfiguration;
+
+    // Stored results, oldest first
+    private final LinkedHashMap<String, StoredResult> results = new LinkedHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+
+    private Path directory;
+    private ScheduledExecutorService expiry;
+
+    @PostConstruct
+    public void start() {
+        if (guiConfiguration.getResultInlineMaxBytes() <= 0) {
+            logger.info("Result offloading disabled, results are always sent inline");
+            return;
+        }
+
+        Path path = guiConfiguration.getResultStoreDirectory();
+        try {
+            Files.createDirectories(path);
+            // Results of an earlier run are not referenced by any client any more
+            List<Path> leftovers = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(path, "*" + RESULT_SUFFIX)) {
+                entries.forEach(leftovers::add);
+            }
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+            directory = path;
+        } catch (IOException e) {
+            logger.warn("Result store directory unavailable, results are always sent inline: {}", e.getMessage());
+            return;
+        }
+
+        expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claude-result-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.MINUTES);
+        logger.info("Results above {} bytes are offloaded to {}", guiConfiguration.getResultInlineMaxBytes(), directory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether the result is too large to send inline and can be stored
+     */
+    public boolean shouldOffload(String result) {
+        long limit = guiConfiguration.getResultInlineMaxBytes();
+        // A char encodes to at most three bytes, so small results are decided without counting
+        return directory != null && result != null && result.length() > limit / 3 && utf8Length(result) > limit;
+    }
+
+    /**
+     * Write the result to a new file; null if it could not be written
+     */
+    public StoredResult store(String result) {
+        String id = UUID.randomUUID().toString();
+        try {
+            Path temp = Files.createTempFile(directory, id, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(result);
+            }
+            Path file = directory.resolve(id + RESULT_SUFFIX);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            StoredResult storedResult = new StoredResult(id, Files.size(file), System.currentTimeMillis());
+            synchronized (this) {
+                results.put(id, storedResult);
+                totalBytes += storedResult.getBytes();
+                trim();
+            }
+            stored.incrementAndGet();
+            return storedResult;
+        } catch (IOException e) {
+            logger.warn("Failed to store result, sending it inline: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * File of a stored result, or null if it is unknown or expired
+     */
+    public Path find(String id) {
+        synchronized (this) {
+            if (!results.containsKey(id)) {
+                return null;
+            }
+        }
+        served.incrementAndGet();
+        return directory.resolve(id + RESULT_SUFFIX);
+    }
+
+    public synchronized int getStoredCount() {
+        return results.size();
+    }
+
+    public synchronized long getStoredBytes() {
+        return totalBytes;
+    }
+
+    public long getStored() {
+        return stored.get();
+    }
+
+    public long getServed() {
+        return served.get();
+    }
+
+    private void expire() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(guiConfiguration.getResultRetentionMinutes());
+        synchronized (this) {
+            Iterator<StoredResult> iterator = results.values().iterator();
+            while (iterator.hasNext()) {
+                StoredResult result = iterator.next();
+                if (result.getStoredAt() > cutoff) {
+                    break;
+                }
+                iterator.remove();
+                totalBytes -= result.getBytes();
+                delete(result.getId());
+            }
+        }
+    }
+
+    /**
+     * Drop the oldest results while over the size cap, always keeping the newest
+     */
+    private void trim() {
+        long maxBytes = guiConfiguration.getResultStoreMaxBytes();
+        Iterator<StoredResult> iterator = results.values().iterator();
+        while (totalBytes > maxBytes && results.size() > 1 && iterator.hasNext()) {
+            StoredResult result = iterator.next();
+            iterator.remove();
+            totalBytes -= result.getBytes();
+            delete(result.getId());
+        }
+    }
+
+    private void delete(String id) {
+        try {
+            Files.deleteIfExists(directory.resolve(id + RESULT_SUFFIX));
+        } catch (IOException e) {
+            logger.debug("Failed to delete stored result {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Encoded size of the string without encoding it
+     */
+    static long utf8Length(String value) {
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Id, encoded size and creation time of a stored result
+     */
+    public static class StoredResult {
+        private final String id;
+        private final long bytes;
+        private final long storedAt;
+
+        StoredResult(String id, long bytes, long storedAt) {
+            this.id = id;
+            this.bytes = bytes;
+            this.storedAt = storedAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getStoredAt() {
+            return storedAt;
+        }
+    }
+}
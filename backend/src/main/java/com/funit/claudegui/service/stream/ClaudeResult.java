@@ -0,0 +1,97 @@
+package com.funit.claudegui.service.stream;
+
+/**
+ * Fields of a `claude --output-format json` result that the backend uses:
+ * the answer or error, and the run's usage and timing as reported by the
+ * CLI. Numbers the CLI did not report are -1.
+ */
+public class ClaudeResult {
+
+    String type;
+    String subtype;
+    boolean isError;
+    String error;
+    String result;
+    String sessionId;
+    long durationMs = -1;
+    long durationApiMs = -1;
+    int numTurns = -1;
+    double totalCostUsd = -1;
+    long inputTokens = -1;
+    long outputTokens = -1;
+    long cacheCreationInputTokens = -1;
+    long cacheReadInputTokens = -1;
+
+    ClaudeResult() {
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSubtype() {
+        return subtype;
+    }
+
+    /**
+     * The CLI answered with an error document instead of a result
+     */
+    public boolean isErrorResponse() {
+        return "error".equals(type);
+    }
+
+    public boolean isError() {
+        return isError;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean hasResult() {
+        return result != null;
+    }
+
+    /**
+     * The answer text
+     */
+    public String getResult() {
+        return result;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getDurationApiMs() {
+        return durationApiMs;
+    }
+
+    public int getNumTurns() {
+        return numTurns;
+    }
+
+    public double getTotalCostUsd() {
+        return totalCostUsd;
+    }
+
+    public long getInputTokens() {
+        return inputTokens;
+    }
+
+    public long getOutputTokens() {
+        return outputTokens;
+    }
+
+    public long getCacheCreationInputTokens() {
+        return cacheCreationInputTokens;
+    }
+
+    public long getCacheReadInputTokens() {
+        return cacheReadInputTokens;
+    }
+}
@@ -0,0 +1,166 @@
+package com.funit.claudegui.service.stream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses the JSON output of `claude --output-format json` with Jackson's
+ * streaming parser, straight from the output stream. Only the fields of
+ * {@link ClaudeResult} are materialized; everything else is skipped
+ * without building a tree. That saves the tree's nodes, which matters for
+ * ordinary documents; a multi-megabyte result still costs Jackson's text
+ * buffer plus the String built from it, as with a tree.
+ *
+ * Accepts the single result document as well as an array of events (as
+ * printed with --verbose), in which case the last result event wins.
+ */
+public class ClaudeResultParser {
+
+    private final ObjectMapper objectMapper;
+
+    public ClaudeResultParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ClaudeResult parse(InputStream in) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                return readObject(parser);
+            }
+            if (token == JsonToken.START_ARRAY) {
+                ClaudeResult last = null;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    ClaudeResult event = readObject(parser);
+                    if (last == null || "result".equals(event.type) || event.isErrorResponse()) {
+                        last = event;
+                    }
+                }
+                if (last != null) {
+                    return last;
+                }
+            }
+            throw new IOException("Claude output is not a JSON object");
+        }
+    }
+
+    /**
+     * Read the fields of the object the parser is positioned on
+     */
+    private static ClaudeResult readObject(JsonParser parser) throws IOException {
+        ClaudeResult result = new ClaudeResult();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type":
+                    result.type = text(parser, value);
+                    break;
+                case "subtype":
+                    result.subtype = text(parser, value);
+                    break;
+                case "is_error":
+                    result.isError = value == JsonToken.VALUE_TRUE;
+                    break;
+                case "error":
+                    result.error = value == JsonToken.START_OBJECT ? errorMessage(parser) : text(parser, value);
+                    break;
+                case "result":
+                    result.result = text(parser, value);
+                    break;
+                case "session_id":
+                    result.sessionId = text(parser, value);
+                    break;
+                case "duration_ms":
+                    result.durationMs = number(parser, value);
+                    break;
+                case "duration_api_ms":
+                    result.durationApiMs = number(parser, value);
+                    break;
+                case "num_turns":
+                    result.numTurns = (int) number(parser, value);
+                    break;
+                case "total_cost_usd":
+                    result.totalCostUsd = value.isNumeric() ? parser.getDoubleValue() : -1;
+                    break;
+                case "usage":
+                    readUsage(parser, value, result);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private static void readUsage(JsonParser parser, JsonToken value, ClaudeResult result) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "input_tokens":
+                    result.inputTokens = number(parser, token);
+                    break;
+                case "output_tokens":
+                    result.outputTokens = number(parser, token);
+                    break;
+                case "cache_creation_input_tokens":
+                    result.cacheCreationInputTokens = number(parser, token);
+                    break;
+                case "cache_read_input_tokens":
+                    result.cacheReadInputTokens = number(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Message of an error given as object, e.g. {"type": "...", "message": "..."}
+     */
+    private static String errorMessage(JsonParser parser) throws IOException {
+        String message = null;
+        String type = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("message".equals(field)) {
+                message = text(parser, token);
+            } else if ("type".equals(field)) {
+                type = text(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return message != null ? message : type;
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            return token == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static long number(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isNumeric()) {
+            return parser.getValueAsLong();
+        }
+        parser.skipChildren();
+        return -1;
+    }
+}
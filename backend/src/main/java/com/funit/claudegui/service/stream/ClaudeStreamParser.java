@@ -0,0 +1,153 @@
+package com.funit.claudegui.service.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses the newline-delimited events of `claude --output-format stream-json`
+ * as they arrive. One parser is used per CLI run; it turns each event line
+ * into content deltas and keeps the text needed for the final answer.
+ */
+public class ClaudeStreamParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaudeStreamParser.class);
+
+    // Tool results can be whole files; only a preview is pushed to the client
+    private static final int TOOL_RESULT_PREVIEW_CHARS = 2000;
+
+    private final ObjectMapper objectMapper;
+    private final StringBuilder streamedText = new StringBuilder();
+
+    private String resultText;
+    private boolean resultError;
+    private String sessionId;
+    // Set once partial text deltas arrived for the assistant message in progress
+    private boolean partialTextSeen;
+
+    public ClaudeStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parse one stdout line and return the deltas it contains
+     */
+    public List<StreamDelta> accept(String line) {
+        if (line == null || line.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        JsonNode event;
+        try {
+            event = objectMapper.readTree(line);
+        } catch (Exception e) {
+            logger.debug("Ignoring non-JSON line in stream output: {}", line);
+            return Collections.emptyList();
+        }
+
+        if (event.hasNonNull("session_id")) {
+            sessionId = event.get("session_id").asText();
+        }
+
+        switch (event.path("type").asText()) {
+            case "stream_event":
+                return onStreamEvent(event.path("event"));
+            case "assistant":
+                return onAssistantMessage(event.path("message"));
+            case "user":
+                return onUserMessage(event.path("message"));
+            case "result":
+                return onResult(event);
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Final answer: the result event's text, or everything streamed so far
+     * if the CLI exited without one
+     */
+    public String getResultText() {
+        return resultText != null ? resultText : streamedText.toString();
+    }
+
+    public boolean hasResult() {
+        return resultText != null;
+    }
+
+    public boolean isResultError() {
+        return resultError;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    private List<StreamDelta> onStreamEvent(JsonNode event) {
+        JsonNode delta = event.path("delta");
+        if ("content_block_delta".equals(event.path("type").asText())
+                && "text_delta".equals(delta.path("type").asText())) {
+            String text = delta.path("text").asText();
+            partialTextSeen = true;
+            streamedText.append(text);
+            return List.of(StreamDelta.text(text));
+        }
+        return Collections.emptyList();
+    }
+
+    private List<StreamDelta> onAssistantMessage(JsonNode message) {
+        List<StreamDelta> deltas = new ArrayList<>();
+        for (JsonNode block : message.path("content")) {
+            String type = block.path("type").asText();
+            if ("text".equals(type) && !partialTextSeen) {
+                // Without partial messages the complete text block is the delta
+                String text = block.path("text").asText();
+                streamedText.append(text);
+                deltas.add(StreamDelta.text(text));
+            } else if ("tool_use".equals(type)) {
+                deltas.add(StreamDelta.toolUse(block.path("name").asText(), block.path("input")));
+            }
+        }
+        partialTextSeen = false;
+        return deltas;
+    }
+
+    private List<StreamDelta> onUserMessage(JsonNode message) {
+        List<StreamDelta> deltas = new ArrayList<>();
+        for (JsonNode block : message.path("content")) {
+            if ("tool_result".equals(block.path("type").asText())) {
+                String text = toolResultText(block.path("content"));
+                if (text.length() > TOOL_RESULT_PREVIEW_CHARS) {
+                    text = text.substring(0, TOOL_RESULT_PREVIEW_CHARS) + "...";
+                }
+                deltas.add(StreamDelta.toolResult(text, block.path("is_error").asBoolean(false)));
+            }
+        }
+        return deltas;
+    }
+
+    private List<StreamDelta> onResult(JsonNode event) {
+        resultError = event.path("is_error").asBoolean(false)
+                || (event.has("subtype") && !"success".equals(event.get("subtype").asText()));
+        resultText = event.path("result").asText(streamedText.toString());
+        return List.of(StreamDelta.result(resultText, resultError));
+    }
+
+    private static String toolResultText(JsonNode content) {
+        if (content.isTextual()) {
+            return content.asText();
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : content) {
+            if (part.has("text")) {
+                text.append(part.get("text").asText());
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.funit.claudegui.service.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One piece of incremental output parsed from the CLI's stream-json events
+ */
+public class StreamDelta {
+
+    public static final String KIND_TEXT = "text";
+    public static final String KIND_TOOL_USE = "tool_use";
+    public static final String KIND_TOOL_RESULT = "tool_result";
+    public static final String KIND_RESULT = "result";
+
+    private final String kind;
+    private final String text;
+    private final String toolName;
+    private final JsonNode toolInput;
+    private final boolean error;
+
+    private StreamDelta(String kind, String text, String toolName, JsonNode toolInput, boolean error) {
+        this.kind = kind;
+        this.text = text;
+        this.toolName = toolName;
+        this.toolInput = toolInput;
+        this.error = error;
+    }
+
+    public static StreamDelta text(String text) {
+        return new StreamDelta(KIND_TEXT, text, null, null, false);
+    }
+
+    public static StreamDelta toolUse(String toolName, JsonNode toolInput) {
+        return new StreamDelta(KIND_TOOL_USE, null, toolName, toolInput, false);
+    }
+
+    public static StreamDelta toolResult(String text, boolean error) {
+        return new StreamDelta(KIND_TOOL_RESULT, text, null, null, error);
+    }
+
+    public static StreamDelta result(String text, boolean error) {
+        return new StreamDelta(KIND_RESULT, text, null, null, error);
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getToolName() {
+        return toolName;
+    }
+
+    public JsonNode getToolInput() {
+        return toolInput;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+}
@@ -0,0 +1,426 @@
+package com.funit.claudegui.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test against a running backend: N analyses over HTTP
+ * with C in flight at a time, their progress and results followed over
+ * STOMP. Reports throughput and p50/p99 of time to first progress message
+ * and time to the final message, both measured from the POST.
+ *
+ * Meant to run against a backend whose `claude` is tools/fake-claude, so a
+ * run costs nothing and its timing is controlled by FAKE_CLAUDE_* variables.
+ *
+ * Several comma-separated URLs make it a cluster test: requests are spread
+ * round-robin over the nodes and each analysis is followed on a different
+ * node than the one it was posted to, so its messages only arrive if the
+ * broker relay works. With `--turns` above 1 every MCP conversation sends
+ * its follow-ups to other nodes, which must route them to the owner.
+ * Subscriptions are then per analysis, made after the POST, with the
+ * events endpoint filling in what was published before. Follow-up turns
+ * also check that the conversation's `eventSeq` numbering never hands a
+ * number already used to a new event, since clients drop such events as
+ * replayed duplicates.
+ *
+ * `--transport native` connects to the plain WebSocket endpoint instead of
+ * the raw WebSocket transport of the SockJS endpoint.
+ *
+ * Usage: mvn -q compile exec:exec -Dbenchmark.main=com.funit.claudegui.bench.LoadTestDriver
+ *            -Dbenchmark.args="--url http://localhost:8080 --mode simple --requests 200 --concurrency 20"
+ *        -Dbenchmark.args="--url http://localhost:8080,http://localhost:8081 --mode mcp --turns 3"
+ */
+public class LoadTestDriver {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String TOPIC_PREFIX = "/topic/claude_analysis_";
+    private static final List<String> KINDS = List.of("progress", "complete", "error");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String[] urls = options.getOrDefault("url", "http://localhost:8080").split(",");
+        String mode = options.getOrDefault("mode", "simple");
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "10"));
+        long timeoutMs = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("timeout", "120")));
+        String prompt = options.getOrDefault("prompt", "Explain the project structure");
+        // Distinct prompts keep simple mode from answering from its cache or coalescing the load away
+        boolean distinct = Boolean.parseBoolean(options.getOrDefault("distinct", "true"));
+        int turns = Integer.parseInt(options.getOrDefault("turns", "1"));
+        // A wildcard subscription only works on the in-memory broker; relayed brokers differ in wildcard syntax
+        boolean perAnalysis = Boolean.parseBoolean(options.getOrDefault("per-analysis", String.valueOf(urls.length > 1)));
+        String transport = options.getOrDefault("transport", "sockjs");
+
+        if (!mode.equals("simple") && !mode.equals("mcp")) {
+            throw new IllegalArgumentException("--mode must be simple or mcp");
+        }
+        if (turns > 1 && !mode.equals("mcp")) {
+            throw new IllegalArgumentException("--turns needs --mode mcp");
+        }
+        if (!transport.equals("sockjs") && !transport.equals("native")) {
+            throw new IllegalArgumentException("--transport must be sockjs or native");
+        }
+
+        Events events = new Events();
+        List<Node> nodes = new ArrayList<>();
+        for (String url : urls) {
+            nodes.add(new Node(url.trim(), connect(url.trim(), transport, events, perAnalysis)));
+        }
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        System.out.printf("%s mode, %d requests of %d turn(s), %d concurrent, against %s%n",
+                mode, requests, turns, concurrency, String.join(", ", urls));
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger next = new AtomicInteger();
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            done.add(CompletableFuture.runAsync(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    String text = distinct ? prompt + " (#" + i + " " + start + ")" : prompt;
+                    String conversationId = null;
+                    // Followed on another node than the first turn goes to, for all turns
+                    Node follower = nodes.get((i + 1) % nodes.size());
+                    List<StompSession.Subscription> subscriptions = new ArrayList<>();
+                    for (int turn = 0; turn < turns; turn++) {
+                        // Each turn goes to the next node
+                        Node target = nodes.get((i + turn) % nodes.size());
+                        Sample sample = run(http, target.url, mode, text, conversationId,
+                                perAnalysis ? follower : null, subscriptions, events, timeoutMs);
+                        samples.add(sample);
+                        if (!"completed".equals(sample.outcome)) {
+                            break;
+                        }
+                        conversationId = sample.analysisId;
+                    }
+                    unsubscribe(follower, subscriptions);
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).join();
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        workers.shutdown();
+        nodes.forEach(node -> node.session.disconnect());
+        report(samples, wallSeconds);
+        if (turns > 1) {
+            System.out.printf("eventSeq numbers reused across turns: %d%s%n",
+                    events.reusedSeqs.get(), events.reusedSeqs.get() > 0 ? " (clients would drop those events)" : "");
+        }
+    }
+
+    /**
+     * One analysis: POST, then wait for its final message
+     */
+    private static Sample run(HttpClient http, String url, String mode, String prompt, String conversationId,
+                              Node follower, List<StompSession.Subscription> subscriptions, Events events,
+                              long timeoutMs) {
+        Sample sample = new Sample();
+        long postedAt = System.nanoTime();
+        long postedAtMillis = System.currentTimeMillis();
+        try {
+            Map<String, Object> request = new HashMap<>();
+            request.put("prompt", prompt);
+            request.put("bypassCache", true);
+            if (conversationId != null) {
+                request.put("conversationId", conversationId);
+            }
+            String body = objectMapper.writeValueAsString(request);
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(url + "/api/claude/analyze-" + mode))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() == 429) {
+                sample.outcome = "rejected";
+                return sample;
+            }
+            JsonNode json = objectMapper.readTree(response.body());
+            if (response.statusCode() >= 400) {
+                sample.outcome = "http " + response.statusCode();
+                return sample;
+            }
+            if (json.path("completed").asBoolean(false)) {
+                // Answered from the cache in the response itself
+                sample.outcome = "completed";
+                sample.totalMs = (System.nanoTime() - postedAt) / 1e6;
+                return sample;
+            }
+
+            sample.analysisId = json.path("analysisId").asText();
+            Tracker tracker = events.track(sample.analysisId, postedAtMillis);
+            if (follower != null && subscriptions.isEmpty()) {
+                // Follow-up turns reuse the conversation id and keep this subscription
+                subscribe(follower, sample.analysisId, events, subscriptions);
+                catchUp(http, follower.url, sample.analysisId, events);
+            }
+            try {
+                String outcome = tracker.finished.get(timeoutMs, TimeUnit.MILLISECONDS);
+                sample.outcome = outcome;
+                sample.totalMs = (tracker.finishedAt - postedAt) / 1e6;
+                if (tracker.firstProgressAt > 0) {
+                    sample.firstProgressMs = (tracker.firstProgressAt - postedAt) / 1e6;
+                }
+            } catch (TimeoutException e) {
+                sample.outcome = "timeout";
+            } finally {
+                events.forget(tracker.analysisId);
+            }
+        } catch (Exception e) {
+            sample.outcome = "failed: " + e.getClass().getSimpleName();
+        }
+        return sample;
+    }
+
+    private static void subscribe(Node node, String analysisId, Events events,
+                                  List<StompSession.Subscription> subscriptions) {
+        // The session's WebSocket does not allow concurrent sends
+        synchronized (node.session) {
+            for (String kind : KINDS) {
+                subscriptions.add(node.session.subscribe(TOPIC_PREFIX + kind + "/" + analysisId, events.handler()));
+            }
+        }
+    }
+
+    private static void unsubscribe(Node node, List<StompSession.Subscription> subscriptions) {
+        synchronized (node.session) {
+            for (StompSession.Subscription subscription : subscriptions) {
+                try {
+                    subscription.unsubscribe();
+                } catch (Exception e) {
+                    // session already gone
+                }
+            }
+        }
+    }
+
+    /**
+     * Events published before the subscription existed, fetched from the
+     * events endpoint of the node the analysis is followed on
+     */
+    private static void catchUp(HttpClient http, String url, String analysisId, Events events) throws Exception {
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(
+                        URI.create(url + "/api/claude/analysis/" + analysisId + "/events?since=0")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return;
+        }
+        for (JsonNode event : objectMapper.readTree(response.body()).path("events")) {
+            events.onMessage(event.path("topic").asText(), objectMapper.convertValue(event.path("payload"), Map.class));
+        }
+    }
+
+    /**
+     * One subscription to every per-analysis topic. Messages can arrive
+     * before the POST has returned the analysis id, so they are kept per
+     * id until someone tracks it.
+     */
+    private static StompSession connect(String url, String transport, Events events, boolean perAnalysis)
+            throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        String wsUrl = url.replaceFirst("^http", "ws") + (transport.equals("native") ? "/ws-native" : "/ws/websocket");
+        StompSession session = client.connect(wsUrl, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+
+        if (!perAnalysis) {
+            session.subscribe(TOPIC_PREFIX + "*/*", events.handler());
+            // Let the subscription reach the broker before the first POST
+            Thread.sleep(500);
+        }
+        return session;
+    }
+
+    private static void report(List<Sample> samples, double wallSeconds) {
+        Map<String, Integer> outcomes = new HashMap<>();
+        List<Double> total = new ArrayList<>();
+        List<Double> firstProgress = new ArrayList<>();
+        for (Sample sample : samples) {
+            outcomes.merge(sample.outcome, 1, Integer::sum);
+            if ("completed".equals(sample.outcome)) {
+                total.add(sample.totalMs);
+                if (sample.firstProgressMs >= 0) {
+                    firstProgress.add(sample.firstProgressMs);
+                }
+            }
+        }
+
+        System.out.printf("wall %.1fs, %d completed, throughput %.2f analyses/s%n",
+                wallSeconds, total.size(), total.size() / wallSeconds);
+        System.out.printf("outcomes: %s%n", outcomes);
+        System.out.printf("%-22s %10s %10s %10s %10s%n", "latency (ms)", "p50", "p99", "max", "samples");
+        printLatency("end to end", total);
+        printLatency("first progress", firstProgress);
+    }
+
+    private static void printLatency(String name, List<Double> values) {
+        if (values.isEmpty()) {
+            System.out.printf("%-22s %10s %10s %10s %10d%n", name, "-", "-", "-", 0);
+            return;
+        }
+        Collections.sort(values);
+        System.out.printf("%-22s %10.1f %10.1f %10.1f %10d%n", name,
+                percentile(values, 50), percentile(values, 99), values.get(values.size() - 1), values.size());
+    }
+
+    private static double percentile(List<Double> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * A backend node and the STOMP session connected to it
+     */
+    private static final class Node {
+        final String url;
+        final StompSession session;
+
+        Node(String url, StompSession session) {
+            this.url = url;
+            this.session = session;
+        }
+    }
+
+    private static final class Sample {
+        String analysisId;
+        String outcome;
+        double totalMs = -1;
+        double firstProgressMs = -1;
+    }
+
+    /**
+     * Timestamps of one analysis as seen over STOMP
+     */
+    private static final class Tracker {
+        final String analysisId;
+        final CompletableFuture<String> finished = new CompletableFuture<>();
+        volatile long firstProgressAt;
+        volatile long finishedAt;
+        // Wall clock of the POST; events the server stamped earlier belong to an earlier turn
+        volatile long notBefore;
+        volatile long finishedTimestamp;
+
+        Tracker(String analysisId) {
+            this.analysisId = analysisId;
+        }
+
+        synchronized void onMessage(String kind, long at, long timestamp) {
+            if (timestamp > 0 && timestamp < notBefore) {
+                return;
+            }
+            if (kind.equals("progress") && firstProgressAt == 0) {
+                firstProgressAt = at;
+            } else if ((kind.equals("complete") || kind.equals("error")) && !finished.isDone()) {
+                finishedAt = at;
+                finishedTimestamp = timestamp;
+                finished.complete(kind.equals("complete") ? "completed" : "error");
+            }
+        }
+    }
+
+    private static final class Events {
+        private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+        // Timestamp of every eventSeq per analysis id, across turns; a replayed
+        // duplicate repeats both, a new event under a used number does not
+        private final Map<String, Map<Long, Long>> seqTimestamps = new ConcurrentHashMap<>();
+        final AtomicLong reusedSeqs = new AtomicLong();
+
+        StompFrameHandler handler() {
+            return new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return Map.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    onMessage(headers.getDestination(), (Map<?, ?>) payload);
+                }
+            };
+        }
+
+        void onMessage(String destination, Map<?, ?> payload) {
+            long at = System.nanoTime();
+            // /topic/claude_analysis_<kind>/<analysisId>
+            String path = destination.substring(TOPIC_PREFIX.length());
+            int slash = path.indexOf('/');
+            String kind = path.substring(0, slash);
+            String analysisId = path.substring(slash + 1);
+            // "ts" when the backend sends compact payloads
+            Object timestamp = payload == null ? null
+                    : payload.containsKey("timestamp") ? payload.get("timestamp") : payload.get("ts");
+            long millis = timestamp instanceof Number ? ((Number) timestamp).longValue() : 0;
+            Object eventSeq = payload == null ? null
+                    : payload.containsKey("eventSeq") ? payload.get("eventSeq") : payload.get("es");
+            if (eventSeq instanceof Number) {
+                Long previous = seqTimestamps.computeIfAbsent(analysisId, id -> new ConcurrentHashMap<>())
+                        .putIfAbsent(((Number) eventSeq).longValue(), millis);
+                if (previous != null && previous != millis) {
+                    reusedSeqs.incrementAndGet();
+                }
+            }
+            trackers.computeIfAbsent(analysisId, Tracker::new).onMessage(kind, at, millis);
+        }
+
+        /**
+         * Tracker of an analysis posted at the given time. A late duplicate of
+         * the previous turn's final message (replayed and fetched both) can
+         * have created one already; that one is replaced.
+         */
+        Tracker track(String analysisId, long postedAtMillis) {
+            Tracker tracker = trackers.compute(analysisId, (id, existing) ->
+                    existing == null || (existing.finished.isDone() && existing.finishedTimestamp < postedAtMillis)
+                            ? new Tracker(id) : existing);
+            tracker.notBefore = postedAtMillis;
+            return tracker;
+        }
+
+        void forget(String analysisId) {
+            trackers.remove(analysisId);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.funit.claudegui.bench;
+
+import com.funit.claudegui.service.process.OutputCapture;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import com.funit.claudegui.service.process.SupervisedProcess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Behaviour of the simple-mode output capture against large and
+ * misbehaving processes: outcome, bytes kept, whether stdout spilled to
+ * disk, wall time and peak heap. The old sequential reader (stdout to EOF,
+ * then stderr) is run on the stderr flood for comparison.
+ *
+ * Usage: mvn -q compile exec:exec -Dbenchmark.main=com.funit.claudegui.bench.OutputCaptureBenchmark
+ */
+public class OutputCaptureBenchmark {
+
+    private static final long MEMORY_BYTES = 1024 * 1024;
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+    private static final int STDERR_BYTES = 64 * 1024;
+    private static final long TIMEOUT_MS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        Path spillDirectory = Files.createTempDirectory("capture-bench");
+        ProcessSupervisor supervisor = new ProcessSupervisor();
+        supervisor.start(2, 1000);
+
+        System.out.printf("memory %d bytes, limit %d bytes, stderr %d bytes, timeout %dms%n",
+                MEMORY_BYTES, MAX_BYTES, STDERR_BYTES, TIMEOUT_MS);
+        System.out.printf("%-22s %-28s %12s %10s %12s %9s %9s%n",
+                "scenario", "outcome", "stdout", "spilled", "stderr", "wall ms", "heap MB");
+        try {
+            run(supervisor, spillDirectory, "small json", "printf '{\"type\":\"result\",\"result\":\"ok\"}'");
+            run(supervisor, spillDirectory, "32MB stdout", "head -c 33554432 /dev/zero | tr '\\0' 'a'");
+            run(supervisor, spillDirectory, "200MB stdout", "head -c 209715200 /dev/zero | tr '\\0' 'a'");
+            run(supervisor, spillDirectory, "100MB stderr flood", "head -c 104857600 /dev/zero | tr '\\0' 'e' >&2; echo '{}'");
+            run(supervisor, spillDirectory, "silent hang", "sleep 60");
+            runSequential("100MB stderr flood", "head -c 104857600 /dev/zero | tr '\\0' 'e' >&2; echo '{}'");
+        } finally {
+            supervisor.shutdown();
+            try (var files = Files.list(spillDirectory)) {
+                System.out.printf("spill files left behind: %d%n", files.count());
+            }
+        }
+    }
+
+    private static void run(ProcessSupervisor supervisor, Path spillDirectory, String scenario, String script) throws Exception {
+        resetHeapPeak();
+        long start = System.nanoTime();
+
+        Process process = new ProcessBuilder("/bin/sh", "-c", script).start();
+        process.getOutputStream().close();
+        OutputCapture output = OutputCapture.spilling(MEMORY_BYTES, MAX_BYTES, spillDirectory);
+        OutputCapture errors = OutputCapture.truncating(STDERR_BYTES);
+        SupervisedProcess supervised = supervisor.supervise(process, output, errors, TIMEOUT_MS);
+
+        String outcome;
+        try {
+            outcome = "exit " + supervised.completion().join();
+        } catch (CompletionException e) {
+            outcome = e.getCause().getClass().getSimpleName();
+        }
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("%-22s %-28s %12d %10s %12s %9d %9d%n", scenario, outcome, output.size(),
+                output.isSpilled(), errors.size() + "+" + errors.getDiscarded(), wallMs, heapPeakMb());
+        output.close();
+    }
+
+    /**
+     * The pre-supervisor capture: a StringBuilder per stream, stdout read to
+     * EOF before stderr, and no timeout (a watchdog stands in for one here)
+     */
+    private static void runSequential(String scenario, String script) throws Exception {
+        resetHeapPeak();
+        long start = System.nanoTime();
+
+        Process process = new ProcessBuilder("/bin/sh", "-c", script).start();
+        process.getOutputStream().close();
+        Thread watchdog = new Thread(() -> {
+            try {
+                if (!process.waitFor(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    process.descendants().forEach(ProcessHandle::destroyForcibly);
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        watchdog.setDaemon(true);
+        watchdog.start();
+
+        StringBuilder output = new StringBuilder();
+        StringBuilder errors = new StringBuilder();
+        readAll(process.getInputStream(), output);
+        readAll(process.getErrorStream(), errors);
+        int exitCode = process.waitFor();
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        String outcome = wallMs >= TIMEOUT_MS ? "hung, killed by watchdog" : "exit " + exitCode;
+        System.out.printf("%-22s %-28s %12d %10s %12s %9d %9d%n", scenario + " (old)", outcome, output.length(),
+                "-", String.valueOf(errors.length()), wallMs, heapPeakMb());
+    }
+
+    private static void readAll(InputStream in, StringBuilder target) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                target.append(line).append("\n");
+            }
+        } catch (IOException e) {
+            // Closed by the watchdog's kill
+        }
+    }
+
+    private static void resetHeapPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : heapPools()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long heapPeakMb() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return peak / (1024 * 1024);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+}
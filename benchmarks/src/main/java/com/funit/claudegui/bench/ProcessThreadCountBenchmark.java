@@ -0,0 +1,162 @@
+package com.funit.claudegui.bench;
+
+import com.funit.claudegui.service.process.LineSplitter;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import com.funit.claudegui.service.process.SupervisedProcess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Peak JVM thread count while N fake CLI processes run at the same time,
+ * once with the old model (two reader threads and a thread blocked in
+ * waitFor per process) and once under {@link ProcessSupervisor}. Each model
+ * runs in a fresh JVM so idle pooled threads of one cannot hide the other's.
+ *
+ * Both numbers include the JDK's own process reaper, one thread per running
+ * child, which no Java-level design can avoid.
+ *
+ * Usage: mvn -q compile exec:exec -Dbenchmark.args="[processes] [lines] [lineDelayMs]"
+ */
+public class ProcessThreadCountBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        boolean child = args.length > 0 && (args[0].equals("threads") || args[0].equals("supervisor"));
+        int offset = child ? 1 : 0;
+        int processes = args.length > offset ? Integer.parseInt(args[offset]) : 200;
+        int lines = args.length > offset + 1 ? Integer.parseInt(args[offset + 1]) : 40;
+        int lineDelayMs = args.length > offset + 2 ? Integer.parseInt(args[offset + 2]) : 50;
+
+        if (!child) {
+            System.out.printf("%d processes, %d lines each, %dms between lines%n", processes, lines, lineDelayMs);
+            System.out.printf("%-12s %12s %12s %12s %12s%n", "model", "baseline", "peak", "per process", "wall ms");
+            fork("threads", processes, lines, lineDelayMs);
+            fork("supervisor", processes, lines, lineDelayMs);
+            return;
+        }
+
+        List<String> command = List.of("/bin/sh", "-c",
+                "i=0; while [ $i -lt " + lines + " ]; do echo \"line $i\"; echo \"noise $i\" >&2; "
+                        + "sleep " + (lineDelayMs / 1000.0) + "; i=$((i+1)); done");
+        if (args[0].equals("threads")) {
+            report("threads", processes, lines, () -> runWithThreads(command, processes));
+        } else {
+            report("supervisor", processes, lines, () -> runWithSupervisor(command, processes));
+        }
+    }
+
+    private static void fork(String model, int processes, int lines, int lineDelayMs) throws Exception {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                ProcessThreadCountBenchmark.class.getName(), model,
+                String.valueOf(processes), String.valueOf(lines), String.valueOf(lineDelayMs))
+                .inheritIO()
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException(model + " run failed");
+        }
+    }
+
+    private interface Run {
+        long linesRead() throws Exception;
+    }
+
+    private static void report(String model, int processes, int lines, Run run) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        long linesRead = run.linesRead();
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int peak = threads.getPeakThreadCount();
+        System.out.printf("%-12s %12d %12d %12.2f %12d%n",
+                model, baseline, peak, (peak - baseline) / (double) processes, wallMs);
+        if (linesRead != 2L * processes * lines) {
+            System.out.printf("  warning: read %d of %d lines%n", linesRead, 2L * processes * lines);
+        }
+    }
+
+    /**
+     * What the services did before: reader threads per stream and a worker
+     * parked in waitFor per process
+     */
+    private static long runWithThreads(List<String> command, int processes) throws Exception {
+        AtomicLong linesRead = new AtomicLong();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "bench-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < processes; i++) {
+            done.add(CompletableFuture.runAsync(() -> {
+                try {
+                    Process process = new ProcessBuilder(command).start();
+                    process.getOutputStream().close();
+                    Thread stdout = new Thread(() -> countLines(process.getInputStream(), linesRead));
+                    Thread stderr = new Thread(() -> countLines(process.getErrorStream(), linesRead));
+                    stdout.start();
+                    stderr.start();
+                    process.waitFor(10, TimeUnit.MINUTES);
+                    stdout.join();
+                    stderr.join();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, workers));
+        }
+        CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).join();
+        workers.shutdown();
+        return linesRead.get();
+    }
+
+    private static long runWithSupervisor(List<String> command, int processes) throws Exception {
+        ProcessSupervisor supervisor = new ProcessSupervisor();
+        supervisor.start(2, 5000);
+        AtomicLong linesRead = new AtomicLong();
+
+        try {
+            List<CompletableFuture<Integer>> done = new ArrayList<>();
+            for (int i = 0; i < processes; i++) {
+                Process process = new ProcessBuilder(command).start();
+                SupervisedProcess supervised = supervisor.supervise(process,
+                        new LineSplitter(line -> linesRead.incrementAndGet()),
+                        new LineSplitter(line -> linesRead.incrementAndGet()),
+                        TimeUnit.MINUTES.toMillis(10));
+                process.getOutputStream().close();
+                done.add(supervised.completion());
+            }
+            CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).join();
+            return linesRead.get();
+        } finally {
+            supervisor.shutdown();
+        }
+    }
+
+    private static void countLines(InputStream in, AtomicLong counter) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+            while (reader.readLine() != null) {
+                counter.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // Process went away
+        }
+    }
+}
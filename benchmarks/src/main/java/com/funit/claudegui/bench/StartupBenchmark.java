@@ -0,0 +1,148 @@
+package com.funit.claudegui.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from starting the backend JVM to the first answered request, for
+ * the plain executable jar and the startup-optimized variants: the
+ * fast-startup profile (lazy beans), the AppCDS archive, and both.
+ *
+ * Every run starts a fresh JVM in an empty working directory (default
+ * configuration) and polls GET /api/claude/status until it answers 200,
+ * so the number includes the beans the first request has to create.
+ * The AppCDS variants are skipped unless the archive has been built.
+ *
+ * Usage: (cd ../backend && mvn package -Pappcds) then
+ *   mvn -q compile exec:exec -Dbenchmark.main=com.funit.claudegui.bench.StartupBenchmark \
+ *       -Dbenchmark.args="[runs] [backend target directory]"
+ */
+public class StartupBenchmark {
+
+    private static final String FAST_STARTUP = "--spring.profiles.active=fast-startup";
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path target = Path.of(args.length > 1 ? args[1] : "../backend/target").toAbsolutePath().normalize();
+
+        Path execJar = find(target, "-exec.jar");
+        Path cdsJar = find(target.resolve("appcds"), "-cds.jar");
+        Path archive = target.resolve("appcds").resolve("app.jsa");
+        if (execJar == null) {
+            throw new IllegalStateException("No executable jar in " + target + ", run mvn package in the backend first");
+        }
+
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant("baseline", List.of("-jar", execJar.toString())));
+        variants.add(new Variant("lazy", List.of("-jar", execJar.toString(), FAST_STARTUP)));
+        if (cdsJar != null && Files.exists(archive)) {
+            String shared = "-XX:SharedArchiveFile=" + archive;
+            variants.add(new Variant("appcds", List.of(shared, "-jar", cdsJar.toString())));
+            variants.add(new Variant("appcds+lazy", List.of(shared, "-jar", cdsJar.toString(), FAST_STARTUP)));
+        } else {
+            System.out.println("No AppCDS archive in " + target.resolve("appcds") + ", build it with mvn package -Pappcds");
+        }
+
+        System.out.printf("%d runs per variant, time to first request in ms%n", runs);
+        System.out.printf("%-12s %10s %10s %10s%n", "variant", "min", "median", "max");
+        for (Variant variant : variants) {
+            List<Long> samples = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                samples.add(timeToFirstRequest(variant));
+            }
+            Collections.sort(samples);
+            System.out.printf("%-12s %10d %10d %10d%n", variant.name,
+                    samples.get(0), samples.get(samples.size() / 2), samples.get(samples.size() - 1));
+        }
+    }
+
+    private static final class Variant {
+        final String name;
+        final List<String> arguments;
+
+        Variant(String name, List<String> arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+    }
+
+    private static long timeToFirstRequest(Variant variant) throws Exception {
+        int port = freePort();
+        Path workDir = Files.createTempDirectory("claude-gui-startup");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Dserver.port=" + port);
+        command.addAll(variant.arguments);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve("backend.log").toFile())
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/claude/status"))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant.name + " exited early, see " + workDir.resolve("backend.log"));
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static Path find(Path directory, String suffix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).findFirst().orElse(null);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
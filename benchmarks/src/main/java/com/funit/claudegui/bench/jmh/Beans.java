@@ -0,0 +1,24 @@
+package com.funit.claudegui.bench.jmh;
+
+import java.lang.reflect.Field;
+
+/**
+ * Wires backend components outside Spring by setting their @Autowired
+ * fields directly
+ */
+final class Beans {
+
+    private Beans() {
+    }
+
+    static <T> T inject(T target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + fieldName + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.funit.claudegui.bench.jmh;
+
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.ClaudeMcpService.ConversationMessage;
+import com.funit.claudegui.service.conversation.ConversationPrompt;
+import com.funit.claudegui.service.conversation.HistoryPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCP prompt assembly (what ClaudeMcpService.buildPromptWithHistory spends
+ * its time on) for conversations of 10, 100 and 1000 turns, with default
+ * history budgets. The steady state reuses the conversation's cached
+ * summary as every turn after the first does; the cold case rebuilds it as
+ * after a restart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryPolicyBenchmark {
+
+    private static final String CONVERSATION_ID = "bench-conversation";
+
+    @Param({"10", "100", "1000"})
+    public int turns;
+
+    private HistoryPolicy historyPolicy;
+    private List<ConversationMessage> history;
+
+    @Setup
+    public void setUp() {
+        historyPolicy = Beans.inject(new HistoryPolicy(), "guiConfiguration", new GuiConfiguration());
+
+        history = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            history.add(new ConversationMessage("user", "Question " + i + ": " + "why does this module ".repeat(10)));
+            history.add(new ConversationMessage("assistant", "Answer " + i + ": " + "because the service does ".repeat(60)));
+        }
+        historyPolicy.buildPrompt(CONVERSATION_ID, history, "warm up the summary");
+    }
+
+    @Benchmark
+    public ConversationPrompt steadyState() {
+        return historyPolicy.buildPrompt(CONVERSATION_ID, history, "What changed in the last commit?");
+    }
+
+    @Benchmark
+    public ConversationPrompt afterRestart() {
+        historyPolicy.clear(CONVERSATION_ID);
+        return historyPolicy.buildPrompt(CONVERSATION_ID, history, "What changed in the last commit?");
+    }
+}
@@ -0,0 +1,84 @@
+package com.funit.claudegui.bench.jmh;
+
+import com.funit.claudegui.service.process.OutputCapture;
+import com.funit.claudegui.service.process.OutputHandler;
+import com.funit.claudegui.service.process.ProcessSupervisor;
+import com.funit.claudegui.service.process.SupervisedProcess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process lifecycle cost under {@link ProcessSupervisor}, against a stub
+ * executable instead of the real CLI: spawn, feed stdin, capture the JSON
+ * answer and reap; and spawn followed by termination of a process that
+ * would otherwise keep running.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessSpawnBenchmark {
+
+    private static final String STUB = "#!/bin/sh\n"
+            + "cat > /dev/null\n"
+            + "printf '{\"type\":\"result\",\"result\":\"ok\"}'\n";
+
+    private Path directory;
+    private Path stub;
+    private ProcessSupervisor supervisor;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("spawn-bench");
+        stub = directory.resolve("claude");
+        Files.writeString(stub, STUB);
+        Files.setPosixFilePermissions(stub, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        supervisor = new ProcessSupervisor();
+        supervisor.start(2, 1000);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        supervisor.shutdown();
+        Files.deleteIfExists(stub);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long spawnAndComplete() throws IOException {
+        Process process = new ProcessBuilder(stub.toString()).start();
+        OutputCapture output = OutputCapture.truncating(64 * 1024);
+        SupervisedProcess supervised = supervisor.supervise(process, output, OutputHandler.DISCARD, 0);
+        process.getOutputStream().write("prompt".getBytes());
+        process.getOutputStream().close();
+        supervised.completion().join();
+        return output.size();
+    }
+
+    @Benchmark
+    public int spawnAndTerminate() throws IOException {
+        Process process = new ProcessBuilder("sleep", "60").start();
+        process.getOutputStream().close();
+        SupervisedProcess supervised = supervisor.supervise(process, OutputHandler.DISCARD, OutputHandler.DISCARD, 0);
+        supervised.terminate();
+        return supervised.completion().join();
+    }
+}
@@ -0,0 +1,91 @@
+package com.funit.claudegui.bench.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.funit.claudegui.service.stream.ClaudeResultParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple-mode result parsing (ClaudeSimpleService.parseClaudeResult) of a
+ * `--output-format json` document with a small and a multi-megabyte result:
+ * the streaming parser against reading the document into a tree, as the
+ * service did before. Run with `-prof gc` to see allocation per parse.
+ * The streaming parser saves the tree for small documents; at 4 MiB both
+ * allocate the same, as the result text dominates either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultParserBenchmark {
+
+    @Param({"1024", "4194304"})
+    public int resultChars;
+
+    private ObjectMapper objectMapper;
+    private ClaudeResultParser parser;
+    private byte[] output;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        parser = new ClaudeResultParser(objectMapper);
+        output = objectMapper.writeValueAsBytes(document(objectMapper, resultChars));
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        return parser.parse(new ByteArrayInputStream(output)).getResult();
+    }
+
+    @Benchmark
+    public String tree() throws IOException {
+        JsonNode root = objectMapper.readTree(new ByteArrayInputStream(output));
+        return root.get("result").asText();
+    }
+
+    /**
+     * CLI output shaped like a real run: metadata, usage and a markdown result
+     */
+    static ObjectNode document(ObjectMapper objectMapper, int resultChars) {
+        StringBuilder result = new StringBuilder(resultChars);
+        while (result.length() < resultChars) {
+            result.append("## Section\nThe service \"reads\" the file and returns `code`.\n");
+        }
+        result.setLength(resultChars);
+
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("type", "result");
+        root.put("subtype", "success");
+        root.put("is_error", false);
+        root.put("duration_ms", 48213);
+        root.put("duration_api_ms", 45120);
+        root.put("num_turns", 7);
+        root.put("result", result.toString());
+        root.put("session_id", "2b1f0c5e-7f5e-4c55-9d0e-3c1a8d0f6a11");
+        root.put("total_cost_usd", 0.1834);
+        ObjectNode usage = root.putObject("usage");
+        usage.put("input_tokens", 5421);
+        usage.put("cache_creation_input_tokens", 12054);
+        usage.put("cache_read_input_tokens", 88213);
+        usage.put("output_tokens", 2310);
+        return root;
+    }
+}
@@ -0,0 +1,204 @@
+package com.funit.claudegui.bench.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.funit.claudegui.config.GuiConfiguration;
+import com.funit.claudegui.service.WebSocketOutboundService;
+import com.funit.claudegui.service.WebSocketPayloadEncoder;
+import com.funit.claudegui.service.execution.AnalysisCoalescer;
+import com.funit.claudegui.service.metrics.ClaudeMetrics;
+import com.funit.claudegui.service.replay.AnalysisEventBuffer;
+import com.funit.claudegui.service.result.ResultStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Outbound WebSocket messages: building and serializing the event (full
+ * or compact property names), the simple broker fanning the message out
+ * to its subscribers, and STOMP encoding of every frame a session receives. Channels are synchronous,
+ * so one operation is one message through the whole outbound path and the
+ * throughput mode reads as broker throughput per thread. Progress batching
+ * is off, so every progress call produces a frame.
+ *
+ * At the end of each trial the average STOMP frame size is printed, raw
+ * and after permessage-deflate with context takeover (what a browser
+ * negotiates), measured over the last frames sent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketMessageBenchmark {
+
+    private static final String ANALYSIS_ID = "5d0e1f7a-3b1c-4f6e-8d2a-9c4b7e1f0a23";
+    private static final int SAMPLED_FRAMES = 64;
+
+    // Sessions subscribed to every topic of the analysis, e.g. several tabs
+    @Param({"1", "8"})
+    public int subscribers;
+
+    // Property names on the wire: json as they are, compact per websocket.compactPayloads
+    @Param({"json", "compact"})
+    public String encoding;
+
+    private WebSocketOutboundService webSocketService;
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final byte[][] sampledFrames = new byte[SAMPLED_FRAMES][];
+    private long framesSent;
+
+    @State(Scope.Benchmark)
+    public static class Result {
+        @Param({"1024", "65536"})
+        public int resultChars;
+
+        String text;
+
+        @Setup
+        public void setUp() {
+            text = "x".repeat(resultChars);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setObjectMapper(objectMapper);
+
+        // Session side: every message the broker delivers becomes a STOMP frame
+        ExecutorSubscribableChannel clientOutboundChannel = new ExecutorSubscribableChannel();
+        clientOutboundChannel.subscribe(this::encodeFrame);
+
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                new ExecutorSubscribableChannel(), clientOutboundChannel, brokerChannel, List.of("/topic"));
+        broker.start();
+        for (int i = 0; i < subscribers; i++) {
+            connect(broker, "session-" + i);
+            for (String topic : List.of("progress", "complete", "error", "delta")) {
+                subscribe(broker, "session-" + i, "/topic/claude_analysis_" + topic + "/" + ANALYSIS_ID);
+            }
+        }
+
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        messagingTemplate.setMessageConverter(new CompositeMessageConverter(List.of(
+                new StringMessageConverter(), new ByteArrayMessageConverter(), jsonConverter)));
+
+        GuiConfiguration guiConfiguration = new GuiConfiguration();
+        Beans.inject(guiConfiguration, "webSocketCompactPayloads", "compact".equals(encoding));
+        WebSocketPayloadEncoder payloadEncoder = new WebSocketPayloadEncoder();
+        Beans.inject(payloadEncoder, "objectMapper", objectMapper);
+        Beans.inject(payloadEncoder, "guiConfiguration", guiConfiguration);
+        payloadEncoder.init();
+        ClaudeMetrics claudeMetrics = Beans.inject(new ClaudeMetrics(), "registry", new SimpleMeterRegistry());
+        AnalysisEventBuffer analysisEventBuffer =
+                Beans.inject(new AnalysisEventBuffer(), "guiConfiguration", guiConfiguration);
+        analysisEventBuffer.start();
+
+        webSocketService = new WebSocketOutboundService();
+        Beans.inject(webSocketService, "messagingTemplate", messagingTemplate);
+        Beans.inject(webSocketService, "guiConfiguration", guiConfiguration);
+        Beans.inject(webSocketService, "analysisCoalescer",
+                Beans.inject(new AnalysisCoalescer(), "guiConfiguration", guiConfiguration));
+        Beans.inject(webSocketService, "claudeMetrics", claudeMetrics);
+        Beans.inject(webSocketService, "resultStore",
+                Beans.inject(new ResultStore(), "guiConfiguration", guiConfiguration));
+        Beans.inject(webSocketService, "analysisEventBuffer", analysisEventBuffer);
+        Beans.inject(webSocketService, "payloadEncoder", payloadEncoder);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportFrameSizes() {
+        int count = (int) Math.min(framesSent, SAMPLED_FRAMES);
+        if (count == 0) {
+            return;
+        }
+        long raw = 0;
+        long deflated = 0;
+        // One deflater for the whole sample: the sliding window spans frames like on a connection
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] buffer = new byte[1 << 20];
+        for (int i = 0; i < count; i++) {
+            byte[] frame = sampledFrames[(int) ((framesSent - count + i) % SAMPLED_FRAMES)];
+            raw += frame.length;
+            deflater.setInput(frame);
+            deflated += deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH) - 4;
+        }
+        deflater.end();
+        System.out.printf("%n  frame bytes: %d raw, %d with permessage-deflate (average of last %d)%n",
+                raw / count, deflated / count, count);
+    }
+
+    @Benchmark
+    public long progress() {
+        webSocketService.sendClaudeProgress(ANALYSIS_ID, "Processing: {\"type\":\"assistant\",\"message\":{\"content\":[");
+        return framesSent;
+    }
+
+    @Benchmark
+    public long complete(Result result) {
+        webSocketService.sendClaudeComplete(ANALYSIS_ID, result.text, 48213L);
+        return framesSent;
+    }
+
+    private static void connect(SimpleBrokerMessageHandler broker, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        accessor.setSessionId(sessionId);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private static void subscribe(SimpleBrokerMessageHandler broker, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(destination);
+        accessor.setDestination(destination);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private void encodeFrame(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        SimpMessageHeaderAccessor delivered = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setDestination(delivered.getDestination());
+        accessor.setSubscriptionId(delivered.getSubscriptionId());
+        accessor.setMessageId(String.valueOf(framesSent));
+        accessor.setContentType(delivered.getContentType());
+        byte[] frame = stompEncoder.encode(accessor.getMessageHeaders(), (byte[]) message.getPayload());
+        sampledFrames[(int) (framesSent++ % SAMPLED_FRAMES)] = frame;
+    }
+}
@@ -15,7 +15,8 @@ sleep 5
 # Update frontend config
 cat > frontend/public/config.json << EOF
 {
-  "apiUrl": "http://localhost:${BACKEND_PORT:-8080}"
+  "apiUrl": "http://localhost:${BACKEND_PORT:-8080}",
+  "websocketTransport": "${WEBSOCKET_TRANSPORT:-sockjs}"
 }
 EOF
 
@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { MonoTypeOperatorFunction, Observable, of } from 'rxjs';
+import { filter, map, mergeMap } from 'rxjs/operators';
 import { ConfigService } from './config.service';
 import { WebsocketService } from './websocket.service';
 
@@ -8,27 +9,90 @@ export interface ClaudeAnalysisRequest {
   prompt: string;
   mode: 'simple' | 'mcp';
   conversationId?: string;
+  bypassCache?: boolean;
 }
 
 export interface ClaudeAnalysisResponse {
   analysisId: string;
   result?: string;
+  resultUrl?: string;
+  resultBytes?: number;
   mode: string;
   completed: boolean;
   error?: string;
   conversationId?: string;
   durationMs?: number;
+  eventSeq?: number;
+}
+
+export interface ClaudeBatchRequest {
+  prompts: string[];
+  parallelism?: number;
+  bypassCache?: boolean;
+}
+
+export interface ClaudeBatchResponse {
+  batchId: string;
+  itemCount: number;
+  parallelism: number;
+  error?: string;
+}
+
+export interface ClaudeBatchEvent {
+  type: 'item' | 'retry' | 'complete';
+  batchId: string;
+  timestamp: number;
+  eventSeq?: number;
+  // item and retry
+  index?: number;
+  attempts?: number;
+  error?: string;
+  // item
+  analysisId?: string;
+  status?: 'completed' | 'failed' | 'cancelled';
+  result?: string;
+  resultUrl?: string;
+  resultBytes?: number;
+  durationMs?: number;
+  fromCache?: boolean;
+  completedItems?: number;
+  totalItems?: number;
+  // retry
+  retryInMs?: number;
+  // complete
+  succeeded?: number;
+  failed?: number;
+  cancelled?: number;
+  items?: {index: number, status: string, attempts: number, durationMs: number, error?: string}[];
 }
 
 export interface ClaudeProgress {
   message: string;
   timestamp: number;
+  queuePosition?: number;
+  messages?: string[];
+  dropped?: number;
+  eventSeq?: number;
+}
+
+export interface ClaudeDelta {
+  seq: number;
+  kind: 'text' | 'tool_use' | 'tool_result' | 'result';
+  text?: string;
+  toolName?: string;
+  toolInput?: any;
+  error?: boolean;
+  timestamp: number;
+  eventSeq?: number;
 }
 
 export interface ClaudeStatus {
   claudeAvailable: boolean;
   simpleMode: boolean;
   mcpMode: boolean;
+  version?: string;
+  latencyMs?: number;
+  checkedAt?: number;
   error?: string;
 }
 
@@ -36,6 +100,9 @@ export interface ClaudeStatus {
   providedIn: 'root'
 })
 export class ClaudeService {
+  // eventSeq values seen by each subscription, per analysis or conversation id
+  private seenEvents = new Map<string, Set<number>[]>();
+
   private get baseUrl(): string {
     return this.configService.getApiUrl() + '/api/claude';
   }
@@ -53,6 +120,13 @@ export class ClaudeService {
     return this.http.get<ClaudeStatus>(`${this.baseUrl}/status`);
   }
 
+  /**
+   * Subscribe to Claude Code status changes pushed by the backend
+   */
+  getStatusUpdates(): Observable<ClaudeStatus> {
+    return this.websocket.getMessages<ClaudeStatus>('/topic/claude_status');
+  }
+
   /**
    * Start analysis in simple mode (no conversation)
    */
@@ -66,36 +140,121 @@ export class ClaudeService {
    */
   analyzeMcp(request: ClaudeAnalysisRequest): Observable<ClaudeAnalysisResponse> {
     request.mode = 'mcp';
+    if (request.conversationId) {
+      // The next turn's events may be numbered from the start again (its buffer expired)
+      this.seenEvents.get(request.conversationId)?.forEach(seen => seen.clear());
+    }
     return this.http.post<ClaudeAnalysisResponse>(`${this.baseUrl}/analyze-mcp`, request);
   }
 
+  /**
+   * Run several prompts in simple mode as one batch; follow it with getBatchEvents
+   */
+  analyzeBatch(request: ClaudeBatchRequest): Observable<ClaudeBatchResponse> {
+    return this.http.post<ClaudeBatchResponse>(`${this.baseUrl}/analyze-batch`, request);
+  }
+
+  /**
+   * Subscribe to the items, retries and final aggregate of a batch; an item
+   * result sent by URL is fetched before the event is emitted
+   */
+  getBatchEvents(batchId: string): Observable<ClaudeBatchEvent> {
+    return this.websocket.getMessages<ClaudeBatchEvent>(
+      `/topic/claude_analysis_batch/${batchId}`
+    ).pipe(
+      this.dropReplayed(batchId),
+      mergeMap(event => event.resultUrl
+        ? this.getResult(event.resultUrl).pipe(map(result => ({ ...event, result })))
+        : of(event))
+    );
+  }
+
+  /**
+   * Cancel a queued or running analysis, or a whole batch; the cancellation arrives on its error topic or in the batch aggregate
+   */
+  cancelAnalysis(analysisId: string): Observable<{analysisId: string, cancelled: boolean, detached: boolean}> {
+    return this.http.delete<{analysisId: string, cancelled: boolean, detached: boolean}>(
+      `${this.baseUrl}/analysis/${analysisId}`
+    );
+  }
+
   /**
    * Subscribe to progress updates for an analysis
    */
   getProgressUpdates(analysisId: string): Observable<ClaudeProgress> {
     return this.websocket.getMessages<ClaudeProgress>(
       `/topic/claude_analysis_progress/${analysisId}`
-    );
+    ).pipe(this.dropReplayed(analysisId));
+  }
+
+  /**
+   * Subscribe to incremental output (MCP streaming mode)
+   */
+  getDeltas(analysisId: string): Observable<ClaudeDelta> {
+    return this.websocket.getMessages<ClaudeDelta>(
+      `/topic/claude_analysis_delta/${analysisId}`
+    ).pipe(this.dropReplayed(analysisId));
   }
 
   /**
-   * Subscribe to completion notification for an analysis
+   * Subscribe to completion notification for an analysis; a large result
+   * sent by URL is fetched before the completion is emitted
    */
   getCompletion(analysisId: string): Observable<ClaudeAnalysisResponse> {
     return this.websocket.getMessages<ClaudeAnalysisResponse>(
       `/topic/claude_analysis_complete/${analysisId}`
+    ).pipe(
+      this.dropReplayed(analysisId),
+      mergeMap(completion => completion.resultUrl
+        ? this.getResult(completion.resultUrl).pipe(map(result => ({ ...completion, result })))
+        : of(completion))
     );
   }
 
+  /**
+   * Fetch a result the backend stored instead of sending it over WebSocket
+   */
+  getResult(resultUrl: string): Observable<string> {
+    return this.http.get(this.configService.getApiUrl() + resultUrl, { responseType: 'text' });
+  }
+
   /**
    * Subscribe to error notifications for an analysis
    */
-  getError(analysisId: string): Observable<{error: string}> {
-    return this.websocket.getMessages<{error: string}>(
+  getError(analysisId: string): Observable<{error: string, cancelled?: boolean, eventSeq?: number}> {
+    return this.websocket.getMessages<{error: string, cancelled?: boolean, eventSeq?: number}>(
       `/topic/claude_analysis_error/${analysisId}`
+    ).pipe(this.dropReplayed(analysisId));
+  }
+
+  /**
+   * Events of an analysis sent after the given eventSeq, for catching up without WebSocket
+   */
+  getEvents(analysisId: string, since = 0): Observable<{analysisId: string, events: {seq: number, topic: string, payload: any}[]}> {
+    return this.http.get<{analysisId: string, events: {seq: number, topic: string, payload: any}[]}>(
+      `${this.baseUrl}/analysis/${analysisId}/events`, { params: { since } }
     );
   }
 
+  /**
+   * Drop messages seen before: events missed before subscribing are
+   * replayed by the backend and may overlap with live ones
+   */
+  private dropReplayed<T extends { eventSeq?: number }>(id: string): MonoTypeOperatorFunction<T> {
+    const seen = new Set<number>();
+    this.seenEvents.set(id, [...(this.seenEvents.get(id) ?? []), seen]);
+    return filter(message => {
+      if (message.eventSeq === undefined) {
+        return true;
+      }
+      if (seen.has(message.eventSeq)) {
+        return false;
+      }
+      seen.add(message.eventSeq);
+      return true;
+    });
+  }
+
   /**
    * Unsubscribe from analysis updates
    */
@@ -103,5 +262,8 @@ export class ClaudeService {
     this.websocket.unsubscribe(`/topic/claude_analysis_progress/${analysisId}`);
     this.websocket.unsubscribe(`/topic/claude_analysis_complete/${analysisId}`);
     this.websocket.unsubscribe(`/topic/claude_analysis_error/${analysisId}`);
+    this.websocket.unsubscribe(`/topic/claude_analysis_delta/${analysisId}`);
+    this.websocket.unsubscribe(`/topic/claude_analysis_batch/${analysisId}`);
+    this.seenEvents.delete(analysisId);
   }
 }
@@ -4,6 +4,8 @@ import { firstValueFrom } from 'rxjs';
 
 interface AppConfig {
   apiUrl: string;
+  // 'native' connects to the plain WebSocket endpoint instead of SockJS
+  websocketTransport?: 'sockjs' | 'native';
 }
 
 @Injectable({
@@ -35,4 +37,8 @@ export class ConfigService {
   getApiUrl(): string {
     return this.config.apiUrl;
   }
+
+  getWebsocketTransport(): 'sockjs' | 'native' {
+    return this.config.websocketTransport === 'native' ? 'native' : 'sockjs';
+  }
 }
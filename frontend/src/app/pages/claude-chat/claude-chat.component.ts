@@ -13,7 +13,7 @@ import { MatIconModule } from '@angular/material/icon';
 import { MatTooltipModule } from '@angular/material/tooltip';
 import { Subscription } from 'rxjs';
 
-import { ClaudeService, ClaudeAnalysisRequest, ClaudeProgress } from '../../services/claude.service';
+import { ClaudeService, ClaudeAnalysisRequest, ClaudeProgress, ClaudeStatus } from '../../services/claude.service';
 import { WebsocketService } from '../../services/websocket.service';
 
 interface ConversationMessage {
@@ -70,6 +70,7 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
   // Subscription management
   private completionSubscription: Subscription | null = null;
   private errorSubscription: Subscription | null = null;
+  private statusSubscription: Subscription | null = null;
 
   constructor(
     private claudeService: ClaudeService,
@@ -80,6 +81,9 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
   ngOnInit(): void {
     this.websocket.requestConnection();
     this.checkStatus();
+    this.statusSubscription = this.claudeService.getStatusUpdates().subscribe(
+      status => this.applyStatus(status)
+    );
     this.loadSettings();
   }
 
@@ -97,21 +101,14 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
   }
 
   ngOnDestroy(): void {
+    this.statusSubscription?.unsubscribe();
     this.unsubscribeFromTopics();
     this.websocket.releaseConnection();
   }
 
   checkStatus(): void {
     this.claudeService.getStatus().subscribe({
-      next: (status) => {
-        this.claudeAvailable = status.claudeAvailable;
-        this.mcpModeAvailable = status.mcpMode;
-        this.statusChecked = true;
-
-        if (!this.mcpModeAvailable && this.useMcpMode) {
-          this.useMcpMode = false;
-        }
-      },
+      next: (status) => this.applyStatus(status),
       error: (err) => {
         console.error('Error checking Claude status:', err);
         this.statusChecked = true;
@@ -120,6 +117,16 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
     });
   }
 
+  private applyStatus(status: ClaudeStatus): void {
+    this.claudeAvailable = status.claudeAvailable;
+    this.mcpModeAvailable = status.mcpMode;
+    this.statusChecked = true;
+
+    if (!this.mcpModeAvailable && this.useMcpMode) {
+      this.useMcpMode = false;
+    }
+  }
+
   analyze(): void {
     if (!this.prompt.trim()) {
       this.error = 'Please enter a prompt';
@@ -166,6 +173,21 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
       next: (response) => {
         this.currentAnalysisId = response.analysisId;
 
+        // Cached results come back directly in the response
+        if (response.completed) {
+          this.result = response.result || '';
+          this.durationMs = response.durationMs || 0;
+          this.isAnalyzing = false;
+          if (this.result) {
+            this.conversationHistory.push({
+              role: 'assistant',
+              content: this.result,
+              timestamp: new Date()
+            });
+          }
+          return;
+        }
+
         // Subscribe to topics for this analysis
         this.subscribeToTopics(this.currentAnalysisId, startTime);
       },
@@ -233,7 +255,7 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
     // Subscribe to errors
     this.errorSubscription = this.claudeService.getError(analysisId).subscribe({
       next: (errorData) => {
-        this.error = errorData.error;
+        this.error = errorData.cancelled ? 'Analysis cancelled' : errorData.error;
         this.isAnalyzing = false;
 
         // In simple mode, unsubscribe after error
@@ -244,6 +266,21 @@ export class ClaudeChatComponent implements OnInit, OnDestroy {
     });
   }
 
+  cancelAnalysis(): void {
+    if (!this.currentAnalysisId) {
+      return;
+    }
+
+    this.claudeService.cancelAnalysis(this.currentAnalysisId).subscribe({
+      error: (err) => {
+        // Already finished; its result or error is on the way
+        if (err.status !== 404) {
+          this.error = err.error?.error || err.message || 'Failed to cancel analysis';
+        }
+      }
+    });
+  }
+
   private unsubscribeFromTopics(): void {
     if (this.completionSubscription) {
       this.completionSubscription.unsubscribe();
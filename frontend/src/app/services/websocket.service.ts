@@ -4,6 +4,44 @@ import { BehaviorSubject, Observable, Subject } from 'rxjs';
 import SockJS from 'sockjs-client';
 import { ConfigService } from './config.service';
 
+// Short property names of analysis events sent with websocket.compactPayloads,
+// mirrors WebSocketPayloadEncoder.COMPACT_NAMES in the backend
+const COMPACT_NAMES: Record<string, string> = {
+  ts: 'timestamp',
+  es: 'eventSeq',
+  m: 'message',
+  ms: 'messages',
+  dr: 'dropped',
+  qp: 'queuePosition',
+  cq: 'conversationQueueDepth',
+  s: 'seq',
+  k: 'kind',
+  t: 'text',
+  tn: 'toolName',
+  ti: 'toolInput',
+  e: 'error',
+  a: 'analysisId',
+  r: 'result',
+  ru: 'resultUrl',
+  rb: 'resultBytes',
+  c: 'completed',
+  d: 'durationMs',
+  f: 'failed',
+  x: 'cancelled',
+  b: 'batchId',
+  y: 'type',
+  i: 'index',
+  st: 'status',
+  n: 'attempts',
+  ri: 'retryInMs',
+  fc: 'fromCache',
+  ci: 'completedItems',
+  tt: 'totalItems',
+  ok: 'succeeded',
+  is: 'items',
+  cr: 'cancelReason'
+};
+
 @Injectable({
   providedIn: 'root'
 })
@@ -74,7 +112,7 @@ export class WebsocketService {
         if (this.stompClient && this.isConnected() && !this.stompSubscriptions.has(topic)) {
           const stompSubscription = this.stompClient.subscribe(topic, message => {
             try {
-              const payload = JSON.parse(message.body);
+              const payload = this.expandCompactNames(JSON.parse(message.body));
               subject.next(payload);
             } catch (err) {
               console.error('Error parsing message', err);
@@ -129,8 +167,11 @@ export class WebsocketService {
     console.log('Connecting to WebSocket...');
 
     const apiUrl = this.configService.getApiUrl();
+    const nativeUrl = apiUrl.replace(/^http/, 'ws') + '/ws-native';
     this.stompClient = new Client({
-      webSocketFactory: () => new SockJS(`${apiUrl}/ws`),
+      webSocketFactory: () => this.configService.getWebsocketTransport() === 'native'
+        ? new WebSocket(nativeUrl)
+        : new SockJS(`${apiUrl}/ws`),
       reconnectDelay: this.getReconnectDelay(),
       heartbeatIncoming: 4000,
       heartbeatOutgoing: 4000,
@@ -189,6 +230,25 @@ export class WebsocketService {
     }
   }
 
+  /**
+   * Restore the full property names of a compact payload; payloads with
+   * full names pass through unchanged
+   */
+  private expandCompactNames(payload: any): any {
+    if (!payload || typeof payload !== 'object' || Array.isArray(payload)) {
+      return payload;
+    }
+    const expanded: any = {};
+    for (const key of Object.keys(payload)) {
+      expanded[COMPACT_NAMES[key] ?? key] = payload[key];
+    }
+    // The item summaries of a batch's aggregate are compacted as well
+    if (Array.isArray(expanded.items)) {
+      expanded.items = expanded.items.map((item: any) => this.expandCompactNames(item));
+    }
+    return expanded;
+  }
+
   private getReconnectDelay(): number {
     const delays = [1000, 2000, 4000, 8000, 16000];
     return delays[Math.min(this.reconnectAttempt, delays.length - 1)];
@@ -24,6 +24,7 @@ FRONTEND_PORT=4200
 BACKEND_HOST="localhost"
 FRONTEND_HOST="localhost"
 AUTO_OPEN=true
+WEBSOCKET_TRANSPORT="sockjs"
 
 if [ -f "claude-gui.config.json" ]; then
     echo "Loading configuration from claude-gui.config.json..."
@@ -35,6 +36,7 @@ if [ -f "claude-gui.config.json" ]; then
         BACKEND_HOST=$(python3 -c "import json,sys; print(json.load(open('claude-gui.config.json')).get('backend', {}).get('host', 'localhost'))" 2>/dev/null || echo "localhost")
         FRONTEND_HOST=$(python3 -c "import json,sys; print(json.load(open('claude-gui.config.json')).get('frontend', {}).get('host', 'localhost'))" 2>/dev/null || echo "localhost")
         AUTO_OPEN=$(python3 -c "import json,sys; print(str(json.load(open('claude-gui.config.json')).get('autoOpenBrowser', True)).lower())" 2>/dev/null || echo "true")
+        WEBSOCKET_TRANSPORT=$(python3 -c "import json,sys; print(json.load(open('claude-gui.config.json')).get('websocket', {}).get('transport', 'sockjs'))" 2>/dev/null || echo "sockjs")
     fi
 else
     echo "No configuration file found, using defaults..."
@@ -46,7 +48,8 @@ fi
 echo "Updating frontend configuration..."
 cat > frontend/public/config.json << EOF
 {
-  "apiUrl": "http://${BACKEND_HOST}:${BACKEND_PORT}"
+  "apiUrl": "http://${BACKEND_HOST}:${BACKEND_PORT}",
+  "websocketTransport": "${WEBSOCKET_TRANSPORT}"
 }
 EOF
 